@@ -0,0 +1,86 @@
+package com.weavechain.curve25519;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Batched Ristretto encoding of doubled points, following double_and_compress_batch from curve25519-dalek.
+//  Compressing an arbitrary point needs an inverse square root per point, the encoding of 2P only needs the inverse
+//  of a product of field elements of P, so the whole batch shares a single field inversion (Montgomery's trick).
+//  Kept in the elisabeth package to reach the extended coordinates and field arithmetic.
+public final class RistrettoBatch {
+
+    private RistrettoBatch() {
+    }
+
+    // compress(2 * P) for each P
+    public static List<CompressedRistretto> doubleAndCompress(List<RistrettoElement> points) {
+        int n = points.size();
+        FieldElement[] e = new FieldElement[n];
+        FieldElement[] f = new FieldElement[n];
+        FieldElement[] g = new FieldElement[n];
+        FieldElement[] h = new FieldElement[n];
+        FieldElement[] eg = new FieldElement[n];
+        FieldElement[] fh = new FieldElement[n];
+        FieldElement[] inv = new FieldElement[n];
+
+        for (int i = 0; i < n; i++) {
+            EdwardsPoint p = points.get(i).repr;
+            FieldElement xx = p.X.square();
+            FieldElement yy = p.Y.square();
+            FieldElement zz = p.Z.square();
+            FieldElement dtt = p.T.square().multiply(Constants.EDWARDS_D);
+
+            e[i] = p.X.multiply(p.Y.add(p.Y));
+            f[i] = zz.add(dtt);
+            g[i] = yy.add(xx);
+            h[i] = zz.subtract(dtt);
+            eg[i] = e[i].multiply(g[i]);
+            fh[i] = f[i].multiply(h[i]);
+            inv[i] = eg[i].multiply(fh[i]);
+        }
+
+        batchInvert(inv);
+
+        List<CompressedRistretto> result = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            FieldElement zInv = eg[i].multiply(inv[i]);
+            FieldElement tInv = fh[i].multiply(inv[i]);
+
+            int rotate = eg[i].multiply(zInv).isNegative();
+            FieldElement ei = e[i].ctSelect(g[i], rotate);
+            FieldElement gi = g[i].ctSelect(e[i].negate(), rotate);
+            FieldElement hi = h[i].ctSelect(f[i].multiply(Constants.SQRT_M1), rotate);
+            FieldElement magic = Constants.INVSQRT_A_MINUS_D.ctSelect(Constants.SQRT_M1, rotate);
+
+            gi = gi.ctSelect(gi.negate(), hi.multiply(ei).multiply(zInv).isNegative());
+
+            FieldElement s = hi.subtract(gi).multiply(magic.multiply(gi.multiply(tInv)));
+            s = s.ctSelect(s.negate(), s.isNegative());
+            result.add(new CompressedRistretto(s.toByteArray()));
+        }
+        return result;
+    }
+
+    // in place, zero elements (points whose double is the identity) stay zero and do not affect the others
+    static void batchInvert(FieldElement[] values) {
+        int n = values.length;
+        if (n == 0) {
+            return;
+        }
+
+        FieldElement[] prefix = new FieldElement[n];
+        FieldElement acc = FieldElement.ONE;
+        for (int i = 0; i < n; i++) {
+            prefix[i] = acc;
+            acc = acc.multiply(values[i].ctSelect(FieldElement.ONE, values[i].isZero()));
+        }
+
+        acc = acc.invert();
+        for (int i = n - 1; i >= 0; i--) {
+            int zero = values[i].isZero();
+            FieldElement next = acc.multiply(values[i]);
+            values[i] = acc.multiply(prefix[i]).ctSelect(FieldElement.ZERO, zero);
+            acc = next.ctSelect(acc, zero);
+        }
+    }
+}
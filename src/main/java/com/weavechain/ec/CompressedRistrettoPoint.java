@@ -1,21 +1,35 @@
 package com.weavechain.ec;
 
 import com.weavechain.curve25519.*;
-import lombok.AllArgsConstructor;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-@Getter
 @EqualsAndHashCode
-@AllArgsConstructor
 public class CompressedRistrettoPoint implements ECPoint {
 
     static final Logger logger = LoggerFactory.getLogger(CompressedRistretto.class);
 
+    @Getter
     private final CompressedRistretto point;
 
+    // decompression result, computed at most once
+    @EqualsAndHashCode.Exclude
+    private volatile RistrettoPoint decompressed;
+
+    @EqualsAndHashCode.Exclude
+    private volatile boolean invalid;
+
+    public CompressedRistrettoPoint(CompressedRistretto point) {
+        this.point = point;
+    }
+
+    CompressedRistrettoPoint(CompressedRistretto point, RistrettoPoint decompressed) {
+        this.point = point;
+        this.decompressed = decompressed;
+    }
+
     public CompressedRistrettoPoint(byte[] data) {
         this(new CompressedRistretto(data));
     }
@@ -32,12 +46,17 @@ public class CompressedRistrettoPoint implements ECPoint {
 
     @Override
     public ECPoint decompress() {
-        try {
-            return new RistrettoPoint(point.decompress());
-        } catch (InvalidEncodingException e) {
-            logger.error("Failed decompression", e);
-            return null;
+        RistrettoPoint result = decompressed;
+        if (result == null && !invalid) {
+            try {
+                result = new RistrettoPoint(point.decompress());
+                decompressed = result;
+            } catch (InvalidEncodingException e) {
+                logger.error("Failed decompression", e);
+                invalid = true;
+            }
         }
+        return result;
     }
 
     @Override
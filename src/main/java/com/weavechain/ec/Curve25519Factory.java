@@ -1,11 +1,17 @@
 package com.weavechain.ec;
 
+import com.weavechain.curve25519.CompressedRistretto;
 import com.weavechain.curve25519.MulUtils;
+import com.weavechain.curve25519.RistrettoBatch;
 import com.weavechain.curve25519.RistrettoElement;
 import com.weavechain.zk.bulletproofs.LinearCombination;
+import lombok.Getter;
+import lombok.Setter;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 public class Curve25519Factory implements ECPointFactory {
 
@@ -13,6 +19,20 @@ public class Curve25519Factory implements ECPointFactory {
 
     public static final LinearCombination LC_ZERO = LinearCombination.from(RScalar.ZERO);
 
+    @Getter
+    @Setter
+    private MSMStrategy msmStrategy = MSMStrategy.auto;
+
+    // below this number of points parallel requests run sequentially
+    @Getter
+    @Setter
+    private int parallelThreshold = 1024;
+
+    // minimum number of points computed by a parallel task
+    @Getter
+    @Setter
+    private int parallelChunkSize = 256;
+
     @Override
     public ECPoint basepoint() {
         return RistrettoPoint.BASEPOINT;
@@ -48,6 +68,11 @@ public class Curve25519Factory implements ECPointFactory {
         return LC_ZERO;
     }
 
+    @Override
+    public boolean hasScalarLimbs() {
+        return true;
+    }
+
     @Override
     public ECPoint fromCompressed(final byte[] data) {
         return new CompressedRistrettoPoint(data);
@@ -68,6 +93,32 @@ public class Curve25519Factory implements ECPointFactory {
         return new RScalar(com.weavechain.curve25519.Scalar.fromBytesModOrderWide(data));
     }
 
+    @Override
+    public ScalarAccumulator accumulator() {
+        return new RScalarAccumulator();
+    }
+
+    @Override
+    public FixedBaseTable fixedBaseTable(ECPoint base) {
+        RistrettoPoint point = (RistrettoPoint)base.decompress();
+        return RistrettoPoint.BASEPOINT.equals(point) ? RistrettoPointTable.BASEPOINT_TABLE : new RistrettoPointTable(point);
+    }
+
+    @Override
+    public List<ECPoint> doubleAndCompressAll(List<ECPoint> points) {
+        List<RistrettoElement> elements = new ArrayList<>(points.size());
+        for (ECPoint p : points) {
+            elements.add(((RistrettoPoint)p.decompress()).getPoint());
+        }
+
+        List<CompressedRistretto> compressed = RistrettoBatch.doubleAndCompress(elements);
+        List<ECPoint> result = new ArrayList<>(compressed.size());
+        for (int i = 0; i < compressed.size(); i++) {
+            result.add(new CompressedRistrettoPoint(compressed.get(i), new RistrettoPoint(elements.get(i).dbl())));
+        }
+        return result;
+    }
+
     @Override
     public ECPoint mulOptimized(Scalar s1, Scalar s2, ECPoint p1, ECPoint p2) {
         return new RistrettoPoint(MulUtils.mulStraus(
@@ -106,13 +157,71 @@ public class Curve25519Factory implements ECPointFactory {
             }
         }
 
-        return new RistrettoPoint(MulUtils.multiscalarMulOpt(
-                ((RScalar)s1).getScalar(),
-                cs2,
-                cs3,
-                ((RistrettoPoint)p1).getPoint(),
-                cp2,
-                cp3
-        ));
+        int size = 1 + (cs2 != null ? cs2.size() : 0) + (cs3 != null ? cs3.size() : 0);
+        boolean usePippenger = MSMStrategy.pippenger.equals(msmStrategy)
+                || MSMStrategy.auto.equals(msmStrategy) && size >= Pippenger.THRESHOLD;
+
+        if (usePippenger) {
+            List<com.weavechain.curve25519.Scalar> scalars = new ArrayList<>(size);
+            List<RistrettoElement> points = new ArrayList<>(size);
+            scalars.add(((RScalar)s1).getScalar());
+            points.add(((RistrettoPoint)p1).getPoint());
+            if (cs2 != null) {
+                scalars.addAll(cs2);
+                points.addAll(cp2);
+            }
+            if (cs3 != null) {
+                scalars.addAll(cs3);
+                points.addAll(cp3);
+            }
+
+            return new RistrettoPoint(Pippenger.multiscalarMul(scalars, points));
+        } else {
+            return new RistrettoPoint(MulUtils.multiscalarMulOpt(
+                    ((RScalar)s1).getScalar(),
+                    cs2,
+                    cs3,
+                    ((RistrettoPoint)p1).getPoint(),
+                    cp2,
+                    cp3
+            ));
+        }
+    }
+
+    @Override
+    public ECPoint multiscalarMulOpt(Scalar s1, List<Scalar> s2, List<Scalar> s3, ECPoint p1, List<ECPoint> p2, List<ECPoint> p3, ForkJoinPool pool) {
+        int size = 1 + (s2 != null ? s2.size() : 0) + (s3 != null ? s3.size() : 0);
+        int chunks = pool != null ? Math.min(pool.getParallelism(), size / Math.max(1, parallelChunkSize)) : 0;
+        if (size < parallelThreshold || chunks < 2) {
+            return multiscalarMulOpt(s1, s2, s3, p1, p2, p3);
+        }
+
+        List<Scalar> scalars = new ArrayList<>(size);
+        List<ECPoint> points = new ArrayList<>(size);
+        scalars.add(s1);
+        points.add(p1);
+        if (s2 != null) {
+            scalars.addAll(s2);
+            points.addAll(p2);
+        }
+        if (s3 != null) {
+            scalars.addAll(s3);
+            points.addAll(p3);
+        }
+
+        int chunkSize = (size + chunks - 1) / chunks;
+        List<ForkJoinTask<ECPoint>> tasks = new ArrayList<>();
+        for (int start = 0; start < size; start += chunkSize) {
+            List<Scalar> cs = scalars.subList(start, Math.min(size, start + chunkSize));
+            List<ECPoint> cp = points.subList(start, Math.min(size, start + chunkSize));
+            tasks.add(pool.submit(() -> multiscalarMulOpt(cs.get(0), cs.subList(1, cs.size()), null, cp.get(0), cp.subList(1, cp.size()), null)));
+        }
+
+        ECPoint result = null;
+        for (ForkJoinTask<ECPoint> task : tasks) {
+            ECPoint partial = task.join();
+            result = result != null ? result.add(partial) : partial;
+        }
+        return result;
     }
 }
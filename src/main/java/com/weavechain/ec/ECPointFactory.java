@@ -2,7 +2,10 @@ package com.weavechain.ec;
 
 import com.weavechain.zk.bulletproofs.LinearCombination;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
 
 public interface ECPointFactory {
 
@@ -28,7 +31,90 @@ public interface ECPointFactory {
 
     Scalar fromBytesModOrderWide(byte[] data);
 
+    // scalars are RScalar values modulo the Ristretto group order, so ScalarVector and SparseScalarMatrix can pack them
+    //  in Montgomery limbs, other backends get element wise Scalar arithmetic
+    default boolean hasScalarLimbs() {
+        return false;
+    }
+
+    default FixedBaseTable fixedBaseTable(ECPoint base) {
+        return new FixedBaseTable() {
+            @Override
+            public ECPoint getBase() {
+                return base;
+            }
+
+            @Override
+            public ECPoint multiply(Scalar scalar) {
+                return base.multiply(scalar);
+            }
+        };
+    }
+
+    default ScalarAccumulator accumulator() {
+        return new ScalarAccumulator() {
+            private Scalar value = zero();
+
+            @Override
+            public ScalarAccumulator mulAddInPlace(Scalar a, Scalar b) {
+                value = a.multiplyAndAdd(b, value);
+                return this;
+            }
+
+            @Override
+            public ScalarAccumulator addInPlace(Scalar a) {
+                value = value.add(a);
+                return this;
+            }
+
+            @Override
+            public Scalar get() {
+                return value;
+            }
+
+            @Override
+            public ScalarAccumulator reset() {
+                value = zero();
+                return this;
+            }
+        };
+    }
+
+    // point by point, an arbitrary Ristretto encoding needs its own inverse square root
+    default List<ECPoint> compressAll(List<ECPoint> points) {
+        List<ECPoint> result = new ArrayList<>(points.size());
+        for (ECPoint p : points) {
+            result.add(p.compress());
+        }
+        return result;
+    }
+
+    // compressed 2 * P for each P, backends with access to the field representation share a single inversion across the batch
+    default List<ECPoint> doubleAndCompressAll(List<ECPoint> points) {
+        List<ECPoint> result = new ArrayList<>(points.size());
+        for (ECPoint p : points) {
+            result.add(p.dbl().compress());
+        }
+        return result;
+    }
+
+    default List<ECPoint> decompressAll(List<ECPoint> points, ForkJoinPool pool) {
+        if (pool != null && points.size() > 1) {
+            return pool.submit(() -> points.parallelStream().map(ECPoint::decompress).collect(Collectors.toList())).join();
+        } else {
+            List<ECPoint> result = new ArrayList<>(points.size());
+            for (ECPoint p : points) {
+                result.add(p.decompress());
+            }
+            return result;
+        }
+    }
+
     ECPoint mulOptimized(Scalar s1, Scalar s2, ECPoint p1, ECPoint p2);
 
     ECPoint multiscalarMulOpt(Scalar s1, List<Scalar> s2, List<Scalar> s3, ECPoint p1, List<ECPoint> p2, List<ECPoint> p3);
+
+    default ECPoint multiscalarMulOpt(Scalar s1, List<Scalar> s2, List<Scalar> s3, ECPoint p1, List<ECPoint> p2, List<ECPoint> p3, ForkJoinPool pool) {
+        return multiscalarMulOpt(s1, s2, s3, p1, p2, p3);
+    }
 }
@@ -0,0 +1,8 @@
+package com.weavechain.ec;
+
+public interface FixedBaseTable {
+
+    ECPoint getBase();
+
+    ECPoint multiply(Scalar scalar);
+}
@@ -0,0 +1,13 @@
+package com.weavechain.ec;
+
+public enum MSMStrategy {
+
+    // Straus (interleaved windows), best for small inputs
+    straus,
+
+    // Pippenger (bucket method), sublinear cost per point for large inputs
+    pippenger,
+
+    // Straus below Pippenger.THRESHOLD points, Pippenger above
+    auto
+}
@@ -0,0 +1,115 @@
+package com.weavechain.ec;
+
+import com.weavechain.curve25519.RistrettoElement;
+import com.weavechain.curve25519.Scalar;
+
+import java.util.List;
+
+public class Pippenger {
+
+    // below this size Straus is faster
+    public static final int THRESHOLD = 190;
+
+    public static final int MAX_WINDOW = 16;
+
+    public static int windowSize(int size) {
+        if (size < 500) {
+            return 6;
+        } else if (size < 800) {
+            return 7;
+        } else {
+            return Math.max(7, Math.min(MAX_WINDOW, 31 - Integer.numberOfLeadingZeros(size) - 2));
+        }
+    }
+
+    public static RistrettoElement multiscalarMul(List<Scalar> scalars, List<RistrettoElement> points) {
+        return multiscalarMul(scalars, points, windowSize(scalars.size()));
+    }
+
+    public static RistrettoElement multiscalarMul(List<Scalar> scalars, List<RistrettoElement> points, int w) {
+        int size = scalars.size();
+        if (size != points.size()) {
+            throw new IllegalArgumentException("Scalars and points size mismatch " + size + " != " + points.size());
+        }
+
+        int count = digitsCount(w);
+        int[][] digits = new int[size][];
+        for (int j = 0; j < size; j++) {
+            digits[j] = signedDigits(scalars.get(j).toByteArray(), w);
+        }
+
+        // digits are in [-2^(w-1), 2^(w-1)), bucket k holds the points with |digit| = k + 1
+        int buckets = 1 << (w - 1);
+        RistrettoElement[] bucket = new RistrettoElement[buckets];
+        RistrettoElement[] negated = new RistrettoElement[size];
+
+        RistrettoElement result = null;
+        for (int i = count; i >= 0; i--) {
+            if (result != null) {
+                for (int k = 0; k < w; k++) {
+                    result = result.dbl();
+                }
+            }
+
+            for (int j = 0; j < size; j++) {
+                int d = digits[j][i];
+                if (d > 0) {
+                    bucket[d - 1] = bucket[d - 1] != null ? bucket[d - 1].add(points.get(j)) : points.get(j);
+                } else if (d < 0) {
+                    if (negated[j] == null) {
+                        negated[j] = points.get(j).negate();
+                    }
+                    bucket[-d - 1] = bucket[-d - 1] != null ? bucket[-d - 1].add(negated[j]) : negated[j];
+                }
+            }
+
+            // sum_k (k + 1) * bucket[k] computed with running sums
+            RistrettoElement running = null;
+            RistrettoElement window = null;
+            for (int k = buckets - 1; k >= 0; k--) {
+                if (bucket[k] != null) {
+                    running = running != null ? running.add(bucket[k]) : bucket[k];
+                    bucket[k] = null;
+                }
+                if (running != null) {
+                    window = window != null ? window.add(running) : running;
+                }
+            }
+
+            if (window != null) {
+                result = result != null ? result.add(window) : window;
+            }
+        }
+
+        return result != null ? result : RistrettoElement.IDENTITY;
+    }
+
+    static int digitsCount(int w) {
+        return (256 + w - 1) / w;
+    }
+
+    // Signed radix 2^w recoding of a 256 bit little endian scalar, the last digit holds the final carry
+    static int[] signedDigits(byte[] scalar, int w) {
+        int count = digitsCount(w);
+        int[] digits = new int[count + 1];
+
+        int mask = (1 << w) - 1;
+        int half = 1 << (w - 1);
+        int carry = 0;
+        for (int i = 0; i < count; i++) {
+            int bit = i * w;
+            int idx = bit >> 3;
+            int word = 0;
+            for (int k = 0; k < 4 && idx + k < scalar.length; k++) {
+                word |= (scalar[idx + k] & 0xFF) << (8 * k);
+            }
+
+            int d = ((word >>> (bit & 7)) & mask) + carry;
+            carry = (d + half) >> w;
+            digits[i] = d - (carry << w);
+        }
+        digits[count] = carry;
+
+        return digits;
+    }
+}
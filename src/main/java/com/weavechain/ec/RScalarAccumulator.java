@@ -0,0 +1,75 @@
+package com.weavechain.ec;
+
+// Products of canonical scalars are summed as unreduced 52 bit limb columns and reduced once every LAZY_TERMS products.
+//  Inputs stay in plain form, a Montgomery reduction divides the columns by R and get() multiplies by R once at the end.
+final class RScalarAccumulator implements ScalarAccumulator {
+
+    private static final int LAZY_TERMS = 64;
+
+    private static final long[] ONE = { 1L, 0L, 0L, 0L, 0L };
+
+    private final long[] wide = new long[ScalarLimbs.SCRATCH];
+
+    private final long[] a = new long[ScalarLimbs.LIMBS];
+
+    private final long[] b = new long[ScalarLimbs.LIMBS];
+
+    // sum of the reduced blocks, divided by R
+    private final long[] sum = new long[ScalarLimbs.LIMBS];
+
+    private int terms = 0;
+
+    @Override
+    public ScalarAccumulator mulAddInPlace(Scalar x, Scalar y) {
+        ScalarLimbs.unpack(x.toByteArray(), a, 0);
+        ScalarLimbs.unpack(y.toByteArray(), b, 0);
+        ScalarLimbs.mulAddWide(a, 0, b, 0, wide);
+        count();
+        return this;
+    }
+
+    @Override
+    public ScalarAccumulator addInPlace(Scalar x) {
+        ScalarLimbs.unpack(x.toByteArray(), a, 0);
+        ScalarLimbs.mulAddWide(a, 0, ONE, 0, wide);
+        count();
+        return this;
+    }
+
+    @Override
+    public Scalar get() {
+        flush();
+
+        long[] r = new long[ScalarLimbs.LIMBS];
+        ScalarLimbs.montMul(sum, 0, ScalarLimbs.RR, 0, r, 0, wide);
+        return new RScalar(com.weavechain.curve25519.Scalar.fromBits(ScalarLimbs.pack(r, 0)));
+    }
+
+    @Override
+    public ScalarAccumulator reset() {
+        for (int i = 0; i < wide.length; i++) {
+            wide[i] = 0;
+        }
+        for (int i = 0; i < sum.length; i++) {
+            sum[i] = 0;
+        }
+        terms = 0;
+        return this;
+    }
+
+    private void count() {
+        terms++;
+        if (terms == LAZY_TERMS) {
+            flush();
+        }
+    }
+
+    private void flush() {
+        if (terms > 0) {
+            long[] part = new long[ScalarLimbs.LIMBS];
+            ScalarLimbs.montReduce(wide, part, 0);
+            ScalarLimbs.add(sum, 0, part, 0, sum, 0);
+            terms = 0;
+        }
+    }
+}
@@ -23,7 +23,7 @@ public class RistrettoPoint implements ECPoint {
 
     @Override
     public ECPoint compress() {
-        return new CompressedRistrettoPoint(point.compress());
+        return new CompressedRistrettoPoint(point.compress(), this);
     }
 
     @Override
@@ -0,0 +1,25 @@
+package com.weavechain.ec;
+
+import com.weavechain.curve25519.RistrettoGeneratorTable;
+import lombok.Getter;
+
+public class RistrettoPointTable implements FixedBaseTable {
+
+    public static final RistrettoPointTable BASEPOINT_TABLE = new RistrettoPointTable(RistrettoPoint.BASEPOINT);
+
+    @Getter
+    private final RistrettoPoint base;
+
+    // radix-16 precomputed multiples of the base, 32 lookup tables of 8 points
+    private final RistrettoGeneratorTable table;
+
+    public RistrettoPointTable(RistrettoPoint base) {
+        this.base = base;
+        this.table = new RistrettoGeneratorTable(base.getPoint());
+    }
+
+    @Override
+    public ECPoint multiply(Scalar scalar) {
+        return new RistrettoPoint(table.multiply(((RScalar)scalar).getScalar()));
+    }
+}
@@ -0,0 +1,15 @@
+package com.weavechain.ec;
+
+// Mutable sum of products, implementations are free to postpone the modular reduction until get()
+public interface ScalarAccumulator {
+
+    // value += a * b
+    ScalarAccumulator mulAddInPlace(Scalar a, Scalar b);
+
+    // value += a
+    ScalarAccumulator addInPlace(Scalar a);
+
+    Scalar get();
+
+    ScalarAccumulator reset();
+}
@@ -0,0 +1,213 @@
+package com.weavechain.ec;
+
+// Arithmetic modulo the group order l on 5 x 52 bit limbs in Montgomery form (R = 2^260), following curve25519-dalek's Scalar52.
+//  Products of two limbs are split in a low 52 bit part and a high part carried into the next column,
+//  so that every intermediate value fits a signed long and columns can be accumulated without reduction.
+final class ScalarLimbs {
+
+    static final int LIMBS = 5;
+
+    // 9 unreduced product columns, each as a low part and a part carried into the next column
+    static final int WIDE = 18;
+
+    // wide columns plus room for the Montgomery quotient digits
+    static final int SCRATCH = WIDE + LIMBS;
+
+    static final long MASK = (1L << 52) - 1;
+
+    static final long[] L = { 0x0002631a5cf5d3edL, 0x000dea2f79cd6581L, 0x000000000014def9L, 0L, 0x0000100000000000L };
+
+    // -l^-1 mod 2^52
+    static final long LFACTOR = 0x00051da312547e1bL;
+
+    // R mod l, the Montgomery form of one
+    static final long[] R = { 0x000f48bd6721e6edL, 0x0003bab5ac67e45aL, 0x000fffffeb35e51bL, 0x000fffffffffffffL, 0x00000fffffffffffL };
+
+    // R^2 mod l
+    static final long[] RR = { 0x0009d265e952d13bL, 0x000d63c715bea69fL, 0x0005be65cb687604L, 0x0003dceec73d217fL, 0x000009411b7c309aL };
+
+    private static final long[] ONE = { 1L, 0L, 0L, 0L, 0L };
+
+    private static final long[] ZERO = new long[LIMBS];
+
+    private ScalarLimbs() {
+    }
+
+    // z += a * b, a and b limbs below 2^52
+    static void mulAddWide(long[] a, int ao, long[] b, int bo, long[] z) {
+        for (int i = 0; i < LIMBS; i++) {
+            long ai = a[ao + i];
+            long ais = ai << 6;
+            for (int j = 0; j < LIMBS; j++) {
+                long bj = b[bo + j];
+                int k = (i + j) << 1;
+                z[k] += (ai * bj) & MASK;
+                z[k + 1] += Math.multiplyHigh(ais, bj << 6);
+            }
+        }
+    }
+
+    // r = z / R mod l, clears the wide part of z so it can be reused
+    static void montReduce(long[] z, long[] r, int ro) {
+        long carry = 0;
+        for (int i = 0; i < 2 * LIMBS; i++) {
+            long c0 = carry + (i < WIDE / 2 ? z[2 * i] : 0) + (i > 0 ? z[2 * i - 1] : 0);
+            long c1 = 0;
+            for (int j = Math.max(0, i - LIMBS + 1); j < Math.min(i, LIMBS); j++) {
+                long lk = L[i - j];
+                if (lk != 0) {
+                    long nj = z[WIDE + j];
+                    c0 += (nj * lk) & MASK;
+                    c1 += Math.multiplyHigh(nj << 6, lk << 6);
+                }
+            }
+
+            if (i < LIMBS) {
+                long ni = (c0 * LFACTOR) & MASK;
+                c0 += (ni * L[0]) & MASK;
+                c1 += Math.multiplyHigh(ni << 6, L[0] << 6);
+                z[WIDE + i] = ni;
+            } else if (i < 2 * LIMBS - 1) {
+                r[ro + i - LIMBS] = c0 & MASK;
+            } else {
+                r[ro + i - LIMBS] = c0;
+            }
+            carry = (c0 >>> 52) + c1;
+        }
+
+        for (int i = 0; i < WIDE; i++) {
+            z[i] = 0;
+        }
+
+        // accumulated inputs can leave a few multiples of l
+        while (!lessThanL(r, ro)) {
+            sub(r, ro, L, 0, r, ro);
+        }
+    }
+
+    static void montMul(long[] a, int ao, long[] b, int bo, long[] r, int ro, long[] scratch) {
+        mulAddWide(a, ao, b, bo, scratch);
+        montReduce(scratch, r, ro);
+    }
+
+    // r = a^e in Montgomery form
+    static void pow(long[] a, int ao, long e, long[] r, int ro, long[] scratch) {
+        long[] base = new long[LIMBS];
+        long[] acc = R.clone();
+        System.arraycopy(a, ao, base, 0, LIMBS);
+        while (e > 0) {
+            if ((e & 1) != 0) {
+                montMul(acc, 0, base, 0, acc, 0, scratch);
+            }
+            montMul(base, 0, base, 0, base, 0, scratch);
+            e >>>= 1;
+        }
+        System.arraycopy(acc, 0, r, ro, LIMBS);
+    }
+
+    static boolean isZero(long[] a, int ao) {
+        for (int i = 0; i < LIMBS; i++) {
+            if (a[ao + i] != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // r = a + b mod l, inputs below l
+    static void add(long[] a, int ao, long[] b, int bo, long[] r, int ro) {
+        long carry = 0;
+        for (int i = 0; i < LIMBS; i++) {
+            carry = a[ao + i] + b[bo + i] + (carry >>> 52);
+            r[ro + i] = carry & MASK;
+        }
+        sub(r, ro, L, 0, r, ro);
+    }
+
+    // r = a - b mod l, inputs below l
+    static void sub(long[] a, int ao, long[] b, int bo, long[] r, int ro) {
+        long borrow = 0;
+        for (int i = 0; i < LIMBS; i++) {
+            borrow = a[ao + i] - (b[bo + i] + (borrow >>> 63));
+            r[ro + i] = borrow & MASK;
+        }
+
+        long underflow = -(borrow >>> 63);
+        long carry = 0;
+        for (int i = 0; i < LIMBS; i++) {
+            carry = (carry >>> 52) + r[ro + i] + (L[i] & underflow);
+            r[ro + i] = carry & MASK;
+        }
+    }
+
+    static void negate(long[] a, int ao, long[] r, int ro) {
+        sub(ZERO, 0, a, ao, r, ro);
+    }
+
+    static boolean lessThanL(long[] a, int ao) {
+        for (int i = LIMBS - 1; i >= 0; i--) {
+            if (a[ao + i] != L[i]) {
+                return a[ao + i] < L[i];
+            }
+        }
+        return false;
+    }
+
+    // 32 little endian bytes to limbs, values above l are reduced
+    static void unpack(byte[] data, long[] r, int ro) {
+        long w0 = word(data, 0);
+        long w1 = word(data, 8);
+        long w2 = word(data, 16);
+        long w3 = word(data, 24);
+
+        r[ro] = w0 & MASK;
+        r[ro + 1] = ((w0 >>> 52) | (w1 << 12)) & MASK;
+        r[ro + 2] = ((w1 >>> 40) | (w2 << 24)) & MASK;
+        r[ro + 3] = ((w2 >>> 28) | (w3 << 36)) & MASK;
+        r[ro + 4] = w3 >>> 16;
+
+        while (!lessThanL(r, ro)) {
+            sub(r, ro, L, 0, r, ro);
+        }
+    }
+
+    static byte[] pack(long[] a, int ao) {
+        long w0 = a[ao] | (a[ao + 1] << 52);
+        long w1 = (a[ao + 1] >>> 12) | (a[ao + 2] << 40);
+        long w2 = (a[ao + 2] >>> 24) | (a[ao + 3] << 28);
+        long w3 = (a[ao + 3] >>> 36) | (a[ao + 4] << 16);
+
+        byte[] data = new byte[32];
+        putWord(data, 0, w0);
+        putWord(data, 8, w1);
+        putWord(data, 16, w2);
+        putWord(data, 24, w3);
+        return data;
+    }
+
+    // 32 little endian bytes to Montgomery form
+    static void fromBytes(byte[] data, long[] r, int ro, long[] scratch) {
+        unpack(data, r, ro);
+        montMul(r, ro, RR, 0, r, ro, scratch);
+    }
+
+    static byte[] toBytes(long[] a, int ao, long[] scratch) {
+        long[] r = new long[LIMBS];
+        montMul(a, ao, ONE, 0, r, 0, scratch);
+        return pack(r, 0);
+    }
+
+    private static long word(byte[] data, int offset) {
+        long w = 0;
+        for (int i = 7; i >= 0; i--) {
+            w = (w << 8) | (data[offset + i] & 0xFF);
+        }
+        return w;
+    }
+
+    private static void putWord(byte[] data, int offset, long w) {
+        for (int i = 0; i < 8; i++) {
+            data[offset + i] = (byte)(w >>> (8 * i));
+        }
+    }
+}
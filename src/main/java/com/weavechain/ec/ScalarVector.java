@@ -0,0 +1,655 @@
+package com.weavechain.ec;
+
+import com.weavechain.zk.bulletproofs.BulletProofs;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+// Vector of scalars modulo the Ristretto group order packed in a single long[] (5 Montgomery limbs per element).
+//  Kernels work in place and return this, so the prover and verifier vector math does not allocate per element.
+//  When the factory has no limb backend (ECPointFactory.hasScalarLimbs) the elements are kept as Scalar values instead.
+public final class ScalarVector {
+
+    private static final int LIMBS = ScalarLimbs.LIMBS;
+
+    // number of products accumulated before the columns are reduced, keeps every column far from overflowing
+    static final int LAZY_TERMS = 64;
+
+    // elements processed by a single task in the pool aware kernels
+    public static final int PARALLEL_CHUNK = 1024;
+
+    // null when values is used
+    private final long[] limbs;
+
+    private final Scalar[] values;
+
+    private int size;
+
+    public ScalarVector(int size) {
+        ECPointFactory factory = BulletProofs.getFactory();
+        if (factory.hasScalarLimbs()) {
+            this.limbs = new long[size * LIMBS];
+            this.values = null;
+        } else {
+            this.limbs = null;
+            this.values = new Scalar[size];
+            Arrays.fill(values, factory.zero());
+        }
+        this.size = size;
+    }
+
+    ScalarVector(long[] limbs, int size) {
+        this.limbs = limbs;
+        this.values = null;
+        this.size = size;
+    }
+
+    private ScalarVector(Scalar[] values, int size) {
+        this.limbs = null;
+        this.values = values;
+        this.size = size;
+    }
+
+    public static ScalarVector from(List<Scalar> scalars) {
+        return from(scalars, scalars.size());
+    }
+
+    // zero padded up to size
+    public static ScalarVector from(List<Scalar> scalars, int size) {
+        if (scalars.size() > size) {
+            throw new IllegalArgumentException("Too many scalars " + scalars.size() + " > " + size);
+        }
+
+        ScalarVector result = new ScalarVector(size);
+        if (result.values != null) {
+            for (int i = 0; i < scalars.size(); i++) {
+                result.values[i] = scalars.get(i);
+            }
+            return result;
+        }
+
+        long[] scratch = new long[ScalarLimbs.SCRATCH];
+        for (int i = 0; i < scalars.size(); i++) {
+            ScalarLimbs.fromBytes(scalars.get(i).toByteArray(), result.limbs, i * LIMBS, scratch);
+        }
+        return result;
+    }
+
+    public static ScalarVector filled(Scalar value, int size) {
+        ScalarVector result = new ScalarVector(size);
+        if (result.values != null) {
+            Arrays.fill(result.values, value);
+            return result;
+        }
+
+        long[] v = limbs(value);
+        for (int i = 0; i < size; i++) {
+            System.arraycopy(v, 0, result.limbs, i * LIMBS, LIMBS);
+        }
+        return result;
+    }
+
+    // 1, x, x^2, ..., x^(size-1)
+    public static ScalarVector powers(Scalar x, int size) {
+        ScalarVector result = new ScalarVector(size);
+        if (result.values != null) {
+            return result.powersFrom(BulletProofs.getFactory().one(), x);
+        }
+        if (size > 0) {
+            System.arraycopy(ScalarLimbs.R, 0, result.limbs, 0, LIMBS);
+
+            long[] v = limbs(x);
+            long[] scratch = new long[ScalarLimbs.SCRATCH];
+            for (int i = 1; i < size; i++) {
+                ScalarLimbs.montMul(result.limbs, (i - 1) * LIMBS, v, 0, result.limbs, i * LIMBS, scratch);
+            }
+        }
+        return result;
+    }
+
+    // x^offset, x^(offset+1), ..., x^(offset+size-1)
+    public static ScalarVector powers(Scalar x, int offset, int size) {
+        ScalarVector result = new ScalarVector(size);
+        if (result.values != null) {
+            Scalar first = BulletProofs.getFactory().one();
+            for (int bit = 31 - Integer.numberOfLeadingZeros(Math.max(offset, 1)); bit >= 0; bit--) {
+                first = first.square();
+                if (((offset >>> bit) & 1) != 0) {
+                    first = first.multiply(x);
+                }
+            }
+            return result.powersFrom(first, x);
+        }
+        if (size > 0) {
+            long[] v = limbs(x);
+            long[] scratch = new long[ScalarLimbs.SCRATCH];
+            ScalarLimbs.pow(v, 0, offset, result.limbs, 0, scratch);
+            for (int i = 1; i < size; i++) {
+                ScalarLimbs.montMul(result.limbs, (i - 1) * LIMBS, v, 0, result.limbs, i * LIMBS, scratch);
+            }
+        }
+        return result;
+    }
+
+    private ScalarVector powersFrom(Scalar first, Scalar x) {
+        for (int i = 0; i < size; i++) {
+            values[i] = i == 0 ? first : values[i - 1].multiply(x);
+        }
+        return this;
+    }
+
+    // result[i] = base * product of factors[k - 1 - j] over the set bits j of i, with k = factors.size() and size <= 2^k.
+    //  Each level [2^j, 2^(j+1)) only depends on the previous ones and is split across the pool when large enough
+    public static ScalarVector subsetProducts(Scalar base, ScalarVector factors, int size, ForkJoinPool pool) {
+        int k = factors.size();
+        if (size > (1L << k)) {
+            throw new IllegalArgumentException("Too many subsets " + size + " > 2^" + k);
+        }
+
+        ScalarVector result = new ScalarVector(size);
+        result.checkBackend(factors);
+        if (size > 0) {
+            result.set(0, base);
+        }
+        for (int j = 0; j < k && (1 << j) < size; j++) {
+            int start = 1 << j;
+            int end = Math.min(size, start << 1);
+            int factor = (k - 1 - j) * LIMBS;
+            if (pool != null && end - start >= 2 * PARALLEL_CHUNK) {
+                int chunks = (end - start + PARALLEL_CHUNK - 1) / PARALLEL_CHUNK;
+                pool.submit(() -> IntStream.range(0, chunks).parallel().forEach(c -> result.subsetLevel(factors, factor, start, start + c * PARALLEL_CHUNK, Math.min(end, start + (c + 1) * PARALLEL_CHUNK)))).join();
+            } else {
+                result.subsetLevel(factors, factor, start, start, end);
+            }
+        }
+        return result;
+    }
+
+    private void subsetLevel(ScalarVector factors, int factor, int start, int from, int to) {
+        if (values != null) {
+            for (int i = from; i < to; i++) {
+                values[i] = values[i - start].multiply(factors.values[factor / LIMBS]);
+            }
+            return;
+        }
+
+        long[] scratch = new long[ScalarLimbs.SCRATCH];
+        for (int i = from; i < to; i++) {
+            ScalarLimbs.montMul(limbs, (i - start) * LIMBS, factors.limbs, factor, limbs, i * LIMBS, scratch);
+        }
+    }
+
+    // sum of weights[j] * vectors[j], each element is reduced once
+    public static ScalarVector linearCombination(List<ScalarVector> vectors, List<Scalar> weights) {
+        if (vectors.size() != weights.size() || vectors.isEmpty()) {
+            throw new IllegalArgumentException("Vectors and weights size mismatch " + vectors.size() + " != " + weights.size());
+        }
+
+        int size = vectors.get(0).size;
+        ScalarVector result = new ScalarVector(size);
+        for (ScalarVector v : vectors) {
+            result.checkSize(v);
+            result.checkBackend(v);
+        }
+        if (result.values != null) {
+            for (int i = 0; i < size; i++) {
+                for (int j = 0; j < vectors.size(); j++) {
+                    result.values[i] = vectors.get(j).values[i].multiplyAndAdd(weights.get(j), result.values[i]);
+                }
+            }
+            return result;
+        }
+
+        long[][] w = new long[weights.size()][];
+        for (int j = 0; j < weights.size(); j++) {
+            w[j] = limbs(weights.get(j));
+        }
+
+        long[] part = new long[LIMBS];
+        long[] scratch = new long[ScalarLimbs.SCRATCH];
+        for (int i = 0; i < size * LIMBS; i += LIMBS) {
+            for (int start = 0; start < w.length; start += LAZY_TERMS) {
+                int end = Math.min(w.length, start + LAZY_TERMS);
+                for (int j = start; j < end; j++) {
+                    ScalarLimbs.mulAddWide(vectors.get(j).limbs, i, w[j], 0, scratch);
+                }
+                ScalarLimbs.montReduce(scratch, part, 0);
+                ScalarLimbs.add(result.limbs, i, part, 0, result.limbs, i);
+            }
+        }
+        return result;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public Scalar get(int index) {
+        checkIndex(index);
+        if (values != null) {
+            return values[index];
+        }
+        return scalar(limbs, index * LIMBS, new long[ScalarLimbs.SCRATCH]);
+    }
+
+    public ScalarVector set(int index, Scalar value) {
+        checkIndex(index);
+        if (values != null) {
+            values[index] = value;
+            return this;
+        }
+        ScalarLimbs.fromBytes(value.toByteArray(), limbs, index * LIMBS, new long[ScalarLimbs.SCRATCH]);
+        return this;
+    }
+
+    // this[index] += value
+    public ScalarVector addAt(int index, Scalar value) {
+        checkIndex(index);
+        if (values != null) {
+            values[index] = values[index].add(value);
+            return this;
+        }
+        long[] v = limbs(value);
+        ScalarLimbs.add(limbs, index * LIMBS, v, 0, limbs, index * LIMBS);
+        return this;
+    }
+
+    // this[index] -= value
+    public ScalarVector subAt(int index, Scalar value) {
+        checkIndex(index);
+        if (values != null) {
+            values[index] = values[index].subtract(value);
+            return this;
+        }
+        long[] v = limbs(value);
+        ScalarLimbs.sub(limbs, index * LIMBS, v, 0, limbs, index * LIMBS);
+        return this;
+    }
+
+    public List<Scalar> toList() {
+        return toList(0, size);
+    }
+
+    public List<Scalar> toList(int from, int to) {
+        checkRange(from, to);
+        if (values != null) {
+            return new ArrayList<>(Arrays.asList(values).subList(from, to));
+        }
+        List<Scalar> result = new ArrayList<>(to - from);
+        long[] scratch = new long[ScalarLimbs.SCRATCH];
+        for (int i = from; i < to; i++) {
+            result.add(scalar(limbs, i * LIMBS, scratch));
+        }
+        return result;
+    }
+
+    public ScalarVector copy() {
+        return copy(0, size);
+    }
+
+    public ScalarVector copy(int from, int to) {
+        checkRange(from, to);
+        if (values != null) {
+            return new ScalarVector(Arrays.copyOfRange(values, from, to), to - from);
+        }
+        long[] data = new long[(to - from) * LIMBS];
+        System.arraycopy(limbs, from * LIMBS, data, 0, data.length);
+        return new ScalarVector(data, to - from);
+    }
+
+    public ScalarVector reversed() {
+        if (values != null) {
+            Scalar[] data = new Scalar[size];
+            for (int i = 0; i < size; i++) {
+                data[size - 1 - i] = values[i];
+            }
+            return new ScalarVector(data, size);
+        }
+        long[] data = new long[size * LIMBS];
+        for (int i = 0; i < size; i++) {
+            System.arraycopy(limbs, i * LIMBS, data, (size - 1 - i) * LIMBS, LIMBS);
+        }
+        return new ScalarVector(data, size);
+    }
+
+    // this[offset + i] = source[i]
+    public ScalarVector put(int offset, ScalarVector source) {
+        checkRange(offset, offset + source.size);
+        checkBackend(source);
+        if (values != null) {
+            System.arraycopy(source.values, 0, values, offset, source.size);
+            return this;
+        }
+        System.arraycopy(source.limbs, 0, limbs, offset * LIMBS, source.size * LIMBS);
+        return this;
+    }
+
+    // copy truncated or zero padded to size
+    public ScalarVector resize(int size) {
+        if (values != null) {
+            ScalarVector result = new ScalarVector(size);
+            System.arraycopy(values, 0, result.values, 0, Math.min(size, this.size));
+            return result;
+        }
+        long[] data = new long[size * LIMBS];
+        System.arraycopy(limbs, 0, data, 0, Math.min(size, this.size) * LIMBS);
+        return new ScalarVector(data, size);
+    }
+
+    // this[i] += other[i]
+    public ScalarVector add(ScalarVector other) {
+        checkSize(other);
+        return add(other, 0);
+    }
+
+    // this[i] += other[offset + i]
+    public ScalarVector add(ScalarVector other, int offset) {
+        other.checkRange(offset, offset + size);
+        checkBackend(other);
+        if (values != null) {
+            for (int i = 0; i < size; i++) {
+                values[i] = values[i].add(other.values[offset + i]);
+            }
+            return this;
+        }
+        for (int i = 0; i < size * LIMBS; i += LIMBS) {
+            ScalarLimbs.add(limbs, i, other.limbs, offset * LIMBS + i, limbs, i);
+        }
+        return this;
+    }
+
+    // this[i] += value
+    public ScalarVector add(Scalar value) {
+        if (values != null) {
+            for (int i = 0; i < size; i++) {
+                values[i] = values[i].add(value);
+            }
+            return this;
+        }
+        long[] v = limbs(value);
+        for (int i = 0; i < size * LIMBS; i += LIMBS) {
+            ScalarLimbs.add(limbs, i, v, 0, limbs, i);
+        }
+        return this;
+    }
+
+    // this[i] -= other[i]
+    public ScalarVector sub(ScalarVector other) {
+        checkSize(other);
+        checkBackend(other);
+        if (values != null) {
+            for (int i = 0; i < size; i++) {
+                values[i] = values[i].subtract(other.values[i]);
+            }
+            return this;
+        }
+        for (int i = 0; i < size * LIMBS; i += LIMBS) {
+            ScalarLimbs.sub(limbs, i, other.limbs, i, limbs, i);
+        }
+        return this;
+    }
+
+    public ScalarVector negate() {
+        if (values != null) {
+            Scalar zero = BulletProofs.getFactory().zero();
+            for (int i = 0; i < size; i++) {
+                values[i] = zero.subtract(values[i]);
+            }
+            return this;
+        }
+        for (int i = 0; i < size * LIMBS; i += LIMBS) {
+            ScalarLimbs.negate(limbs, i, limbs, i);
+        }
+        return this;
+    }
+
+    // this[i] *= value
+    public ScalarVector mul(Scalar value) {
+        return mul(0, size, value);
+    }
+
+    // this[i] *= value for i in [from, to)
+    public ScalarVector mul(int from, int to, Scalar value) {
+        checkRange(from, to);
+        if (values != null) {
+            for (int i = from; i < to; i++) {
+                values[i] = values[i].multiply(value);
+            }
+            return this;
+        }
+        long[] v = limbs(value);
+        long[] scratch = new long[ScalarLimbs.SCRATCH];
+        for (int i = from * LIMBS; i < to * LIMBS; i += LIMBS) {
+            ScalarLimbs.montMul(limbs, i, v, 0, limbs, i, scratch);
+        }
+        return this;
+    }
+
+    // this[i] += other[i] * value
+    public ScalarVector mulAdd(ScalarVector other, Scalar value) {
+        checkSize(other);
+        return mulAdd(other, 0, value);
+    }
+
+    // this[i] += other[offset + i] * value
+    public ScalarVector mulAdd(ScalarVector other, int offset, Scalar value) {
+        other.checkRange(offset, offset + size);
+        checkBackend(other);
+        if (values != null) {
+            for (int i = 0; i < size; i++) {
+                values[i] = other.values[offset + i].multiplyAndAdd(value, values[i]);
+            }
+            return this;
+        }
+        long[] v = limbs(value);
+        long[] t = new long[LIMBS];
+        long[] scratch = new long[ScalarLimbs.SCRATCH];
+        for (int i = 0; i < size * LIMBS; i += LIMBS) {
+            ScalarLimbs.montMul(other.limbs, offset * LIMBS + i, v, 0, t, 0, scratch);
+            ScalarLimbs.add(limbs, i, t, 0, limbs, i);
+        }
+        return this;
+    }
+
+    // in place batch inversion sharing a single field inversion (Montgomery's trick)
+    public ScalarVector invert() {
+        if (size == 0) {
+            return this;
+        }
+        if (values != null) {
+            return invertValues();
+        }
+
+        long[] prefix = new long[size * LIMBS];
+        long[] scratch = new long[ScalarLimbs.SCRATCH];
+        System.arraycopy(limbs, 0, prefix, 0, LIMBS);
+        for (int i = 1; i < size; i++) {
+            ScalarLimbs.montMul(prefix, (i - 1) * LIMBS, limbs, i * LIMBS, prefix, i * LIMBS, scratch);
+        }
+        if (ScalarLimbs.isZero(prefix, (size - 1) * LIMBS)) {
+            throw new ArithmeticException("Cannot invert zero");
+        }
+
+        long[] inv = limbs(scalar(prefix, (size - 1) * LIMBS, scratch).invert());
+        long[] t = new long[LIMBS];
+        for (int i = size - 1; i > 0; i--) {
+            ScalarLimbs.montMul(inv, 0, prefix, (i - 1) * LIMBS, t, 0, scratch);
+            ScalarLimbs.montMul(inv, 0, limbs, i * LIMBS, inv, 0, scratch);
+            System.arraycopy(t, 0, limbs, i * LIMBS, LIMBS);
+        }
+        System.arraycopy(inv, 0, limbs, 0, LIMBS);
+        return this;
+    }
+
+    private ScalarVector invertValues() {
+        Scalar[] prefix = new Scalar[size];
+        prefix[0] = values[0];
+        for (int i = 1; i < size; i++) {
+            prefix[i] = prefix[i - 1].multiply(values[i]);
+        }
+        if (Arrays.equals(prefix[size - 1].toByteArray(), BulletProofs.getFactory().zero().toByteArray())) {
+            throw new ArithmeticException("Cannot invert zero");
+        }
+
+        Scalar inv = prefix[size - 1].invert();
+        for (int i = size - 1; i > 0; i--) {
+            Scalar t = inv.multiply(prefix[i - 1]);
+            inv = inv.multiply(values[i]);
+            values[i] = t;
+        }
+        values[0] = inv;
+        return this;
+    }
+
+    public Scalar product() {
+        if (values != null) {
+            Scalar acc = BulletProofs.getFactory().one();
+            for (int i = 0; i < size; i++) {
+                acc = acc.multiply(values[i]);
+            }
+            return acc;
+        }
+        long[] acc = ScalarLimbs.R.clone();
+        long[] scratch = new long[ScalarLimbs.SCRATCH];
+        for (int i = 0; i < size * LIMBS; i += LIMBS) {
+            ScalarLimbs.montMul(acc, 0, limbs, i, acc, 0, scratch);
+        }
+        return scalar(acc, 0, scratch);
+    }
+
+    // this[i] *= other[i]
+    public ScalarVector hadamard(ScalarVector other) {
+        return hadamard(other, 0);
+    }
+
+    // this[i] *= other[offset + i]
+    public ScalarVector hadamard(ScalarVector other, int offset) {
+        other.checkRange(offset, offset + size);
+        checkBackend(other);
+        if (values != null) {
+            for (int i = 0; i < size; i++) {
+                values[i] = values[i].multiply(other.values[offset + i]);
+            }
+            return this;
+        }
+        long[] scratch = new long[ScalarLimbs.SCRATCH];
+        for (int i = 0; i < size * LIMBS; i += LIMBS) {
+            ScalarLimbs.montMul(limbs, i, other.limbs, offset * LIMBS + i, limbs, i, scratch);
+        }
+        return this;
+    }
+
+    // this[i] = x * this[i] + y * this[half + i], then the vector keeps its first half
+    public ScalarVector fold(Scalar x, Scalar y) {
+        return fold(x, y, null);
+    }
+
+    public ScalarVector fold(Scalar x, Scalar y, ForkJoinPool pool) {
+        if (size % 2 != 0) {
+            throw new IllegalStateException("Cannot fold odd length " + size);
+        }
+
+        int half = size / 2;
+        if (values != null) {
+            for (int i = 0; i < half; i++) {
+                values[i] = values[i].multiply(x).add(values[half + i].multiply(y));
+            }
+            size = half;
+            return this;
+        }
+
+        long[] vx = limbs(x);
+        long[] vy = limbs(y);
+        if (pool != null && half >= 2 * PARALLEL_CHUNK) {
+            int chunks = (half + PARALLEL_CHUNK - 1) / PARALLEL_CHUNK;
+            pool.submit(() -> IntStream.range(0, chunks).parallel().forEach(c -> foldRange(vx, vy, half, c * PARALLEL_CHUNK, Math.min(half, (c + 1) * PARALLEL_CHUNK)))).join();
+        } else {
+            foldRange(vx, vy, half, 0, half);
+        }
+        size = half;
+        return this;
+    }
+
+    private void foldRange(long[] vx, long[] vy, int half, int from, int to) {
+        long[] scratch = new long[ScalarLimbs.SCRATCH];
+        for (int i = from * LIMBS; i < to * LIMBS; i += LIMBS) {
+            ScalarLimbs.mulAddWide(limbs, i, vx, 0, scratch);
+            ScalarLimbs.mulAddWide(limbs, half * LIMBS + i, vy, 0, scratch);
+            ScalarLimbs.montReduce(scratch, limbs, i);
+        }
+    }
+
+    public Scalar innerProduct(ScalarVector other) {
+        checkSize(other);
+        return innerProduct(0, other, 0, size);
+    }
+
+    // sum of this[from + i] * other[otherFrom + i] for i < length
+    public Scalar innerProduct(int from, ScalarVector other, int otherFrom, int length) {
+        checkRange(from, from + length);
+        other.checkRange(otherFrom, otherFrom + length);
+        checkBackend(other);
+        if (values != null) {
+            Scalar acc = BulletProofs.getFactory().zero();
+            for (int i = 0; i < length; i++) {
+                acc = values[from + i].multiplyAndAdd(other.values[otherFrom + i], acc);
+            }
+            return acc;
+        }
+
+        long[] acc = new long[LIMBS];
+        long[] part = new long[LIMBS];
+        long[] scratch = new long[ScalarLimbs.SCRATCH];
+        for (int start = 0; start < length; start += LAZY_TERMS) {
+            int end = Math.min(length, start + LAZY_TERMS);
+            for (int i = start; i < end; i++) {
+                ScalarLimbs.mulAddWide(limbs, (from + i) * LIMBS, other.limbs, (otherFrom + i) * LIMBS, scratch);
+            }
+            ScalarLimbs.montReduce(scratch, part, 0);
+            ScalarLimbs.add(acc, 0, part, 0, acc, 0);
+        }
+        return scalar(acc, 0, scratch);
+    }
+
+    // null for vectors without the limb backend
+    long[] limbs() {
+        return limbs;
+    }
+
+    static long[] limbs(Scalar value) {
+        long[] result = new long[LIMBS];
+        ScalarLimbs.fromBytes(value.toByteArray(), result, 0, new long[ScalarLimbs.SCRATCH]);
+        return result;
+    }
+
+    private static Scalar scalar(long[] data, int offset, long[] scratch) {
+        return new RScalar(com.weavechain.curve25519.Scalar.fromBits(ScalarLimbs.toBytes(data, offset, scratch)));
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+        }
+    }
+
+    private void checkRange(int from, int to) {
+        if (from < 0 || to > size || from > to) {
+            throw new IndexOutOfBoundsException("Range [" + from + ", " + to + ") out of bounds for length " + size);
+        }
+    }
+
+    private void checkBackend(ScalarVector other) {
+        if ((other.limbs == null) != (limbs == null)) {
+            throw new IllegalArgumentException("Vectors from different scalar backends");
+        }
+    }
+
+    private void checkSize(ScalarVector other) {
+        if (other.size != size) {
+            throw new IllegalArgumentException("Vectors size mismatch " + size + " != " + other.size);
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.weavechain.ec;
+
+import com.weavechain.zk.bulletproofs.BulletProofs;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+// Compressed sparse row matrix of scalars, coefficients are packed as Montgomery limbs like in ScalarVector.
+//  Duplicate (row, col) entries are kept and summed by multiply. Without a limb backend the coefficients are Scalar values.
+public final class SparseScalarMatrix {
+
+    private static final int LIMBS = ScalarLimbs.LIMBS;
+
+    // rows computed by a single parallel task
+    public static final int ROW_BLOCK = 256;
+
+    // below this number of entries multiply runs sequentially even when a pool is given
+    public static final int PARALLEL_THRESHOLD = 1 << 14;
+
+    private final int rows;
+
+    private final int cols;
+
+    private final int[] rowPtr;
+
+    private final int[] colIdx;
+
+    // null when scalars is used
+    private final long[] values;
+
+    private final Scalar[] scalars;
+
+    private SparseScalarMatrix(int rows, int cols, int[] rowPtr, int[] colIdx, long[] values, Scalar[] scalars) {
+        this.rows = rows;
+        this.cols = cols;
+        this.rowPtr = rowPtr;
+        this.colIdx = colIdx;
+        this.values = values;
+        this.scalars = scalars;
+    }
+
+    public int rows() {
+        return rows;
+    }
+
+    public int cols() {
+        return cols;
+    }
+
+    public int nonZeros() {
+        return colIdx.length;
+    }
+
+    public ScalarVector multiply(ScalarVector x) {
+        return multiply(x, rows, null);
+    }
+
+    // result[i] = sum_k M[i][k] * x[k], zero padded up to size
+    public ScalarVector multiply(ScalarVector x, int size, ForkJoinPool pool) {
+        if (x.size() != cols) {
+            throw new IllegalArgumentException("Vector size mismatch " + x.size() + " != " + cols);
+        }
+        if (size < rows) {
+            throw new IllegalArgumentException("Result size too small " + size + " < " + rows);
+        }
+
+        ScalarVector result = new ScalarVector(size);
+        if ((x.limbs() == null) != (values == null) || (result.limbs() == null) != (values == null)) {
+            throw new IllegalArgumentException("Matrix and vector from different scalar backends");
+        }
+
+        int blocks = (rows + ROW_BLOCK - 1) / ROW_BLOCK;
+        if (pool != null && blocks > 1 && nonZeros() >= PARALLEL_THRESHOLD) {
+            pool.submit(() -> IntStream.range(0, blocks).parallel().forEach(b -> multiplyRows(x, result, b * ROW_BLOCK, Math.min(rows, (b + 1) * ROW_BLOCK)))).join();
+        } else {
+            multiplyRows(x, result, 0, rows);
+        }
+        return result;
+    }
+
+    private void multiplyRows(ScalarVector x, ScalarVector result, int from, int to) {
+        if (scalars != null) {
+            for (int i = from; i < to; i++) {
+                Scalar acc = result.get(i);
+                for (int k = rowPtr[i]; k < rowPtr[i + 1]; k++) {
+                    acc = scalars[k].multiplyAndAdd(x.get(colIdx[k]), acc);
+                }
+                result.set(i, acc);
+            }
+            return;
+        }
+
+        long[] xl = x.limbs();
+        long[] rl = result.limbs();
+        long[] part = new long[LIMBS];
+        long[] scratch = new long[ScalarLimbs.SCRATCH];
+        for (int i = from; i < to; i++) {
+            int terms = 0;
+            for (int k = rowPtr[i]; k < rowPtr[i + 1]; k++) {
+                ScalarLimbs.mulAddWide(values, k * LIMBS, xl, colIdx[k] * LIMBS, scratch);
+                if (++terms == ScalarVector.LAZY_TERMS || k == rowPtr[i + 1] - 1) {
+                    ScalarLimbs.montReduce(scratch, part, 0);
+                    ScalarLimbs.add(rl, i * LIMBS, part, 0, rl, i * LIMBS);
+                    terms = 0;
+                }
+            }
+        }
+    }
+
+    public static Builder builder(int rows, int cols) {
+        return new Builder(rows, cols);
+    }
+
+    // collects (row, col, value) entries in any order
+    public static class Builder {
+
+        private final int rows;
+
+        private final int cols;
+
+        private int size = 0;
+
+        private int[] entryRows = new int[16];
+
+        private int[] entryCols = new int[16];
+
+        private long[] entryValues;
+
+        private Scalar[] entryScalars;
+
+        private final long[] scratch = new long[ScalarLimbs.SCRATCH];
+
+        private Builder(int rows, int cols) {
+            this.rows = rows;
+            this.cols = cols;
+            if (BulletProofs.getFactory().hasScalarLimbs()) {
+                entryValues = new long[16 * LIMBS];
+            } else {
+                entryScalars = new Scalar[16];
+            }
+        }
+
+        public Builder add(int row, int col, Scalar value) {
+            if (row < 0 || row >= rows || col < 0 || col >= cols) {
+                throw new IndexOutOfBoundsException("Entry (" + row + ", " + col + ") out of bounds for " + rows + " x " + cols);
+            }
+
+            if (size == entryRows.length) {
+                entryRows = Arrays.copyOf(entryRows, 2 * size);
+                entryCols = Arrays.copyOf(entryCols, 2 * size);
+                if (entryScalars != null) {
+                    entryScalars = Arrays.copyOf(entryScalars, 2 * size);
+                } else {
+                    entryValues = Arrays.copyOf(entryValues, 2 * size * LIMBS);
+                }
+            }
+
+            entryRows[size] = row;
+            entryCols[size] = col;
+            if (entryScalars != null) {
+                entryScalars[size] = value;
+            } else {
+                ScalarLimbs.fromBytes(value.toByteArray(), entryValues, size * LIMBS, scratch);
+            }
+            size++;
+            return this;
+        }
+
+        // value is negated before being stored
+        public Builder sub(int row, int col, Scalar value) {
+            add(row, col, value);
+            if (entryScalars != null) {
+                entryScalars[size - 1] = BulletProofs.getFactory().zero().subtract(value);
+            } else {
+                ScalarLimbs.negate(entryValues, (size - 1) * LIMBS, entryValues, (size - 1) * LIMBS);
+            }
+            return this;
+        }
+
+        public SparseScalarMatrix build() {
+            // counting sort by row, entries keep their insertion order within a row
+            int[] rowPtr = new int[rows + 1];
+            for (int k = 0; k < size; k++) {
+                rowPtr[entryRows[k] + 1]++;
+            }
+            for (int i = 0; i < rows; i++) {
+                rowPtr[i + 1] += rowPtr[i];
+            }
+
+            int[] next = Arrays.copyOf(rowPtr, rows);
+            int[] colIdx = new int[size];
+            long[] values = entryScalars == null ? new long[size * LIMBS] : null;
+            Scalar[] scalars = entryScalars != null ? new Scalar[size] : null;
+            for (int k = 0; k < size; k++) {
+                int pos = next[entryRows[k]]++;
+                colIdx[pos] = entryCols[k];
+                if (scalars != null) {
+                    scalars[pos] = entryScalars[k];
+                } else {
+                    System.arraycopy(entryValues, k * LIMBS, values, pos * LIMBS, LIMBS);
+                }
+            }
+
+            return new SparseScalarMatrix(rows, cols, rowPtr, colIdx, values, scalars);
+        }
+    }
+}
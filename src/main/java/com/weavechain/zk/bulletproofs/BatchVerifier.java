@@ -0,0 +1,113 @@
+package com.weavechain.zk.bulletproofs;
+
+import com.weavechain.ec.ECPoint;
+import com.weavechain.ec.Scalar;
+import lombok.Getter;
+import lombok.Setter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+public class BatchVerifier {
+
+    static final Logger logger = LoggerFactory.getLogger(BatchVerifier.class);
+
+    @Getter
+    private final List<Verifier> verifiers = new ArrayList<>();
+
+    @Getter
+    private final List<Proof> proofs = new ArrayList<>();
+
+    @Getter
+    @Setter
+    private ForkJoinPool pool;
+
+    public BatchVerifier add(Verifier verifier, Proof proof) {
+        verifiers.add(verifier);
+        proofs.add(proof);
+        return this;
+    }
+
+    public int size() {
+        return proofs.size();
+    }
+
+    // All proofs are checked with a single multiscalar multiplication: each proof's equation is weighted
+    //  by an independent random scalar and the coefficients of the shared B, B_blinding, G and H bases are merged.
+    //  A failure only tells that at least one of the proofs is invalid.
+    public boolean verify(PedersenCommitment pedersenCommitment, BulletProofGenerators generators) {
+        if (proofs.isEmpty()) {
+            return true;
+        }
+
+        List<Verifier.Check> checks = new ArrayList<>();
+        for (int i = 0; i < proofs.size(); i++) {
+            Verifier.Check check = verifiers.get(i).check(proofs.get(i), pedersenCommitment, generators);
+            if (check == null) {
+                return false;
+            }
+            checks.add(check);
+        }
+
+        return verify(checks, pedersenCommitment, pool);
+    }
+
+    // The coefficients of the G and H generators are merged by point instance, so checks over the same generators tables
+    //  (R1CS proofs on share 0, aggregated range proofs on several shares) share their terms
+    static boolean verify(List<Verifier.Check> checks, PedersenCommitment pedersenCommitment, ForkJoinPool pool) {
+        Scalar zero = BulletProofs.getFactory().zero();
+        Scalar bScalar = zero;
+        Scalar blindingScalar = zero;
+        Map<ECPoint, Integer> baseIndex = new IdentityHashMap<>();
+        List<ECPoint> bases = new ArrayList<>();
+        List<Scalar> baseScalars = new ArrayList<>();
+        List<Scalar> scalars = new ArrayList<>();
+        List<ECPoint> points = new ArrayList<>();
+
+        for (Verifier.Check check : checks) {
+            Scalar c = Utils.randomScalar();
+
+            bScalar = bScalar.add(c.multiply(check.getBScalar()));
+            blindingScalar = blindingScalar.add(c.multiply(check.getBlindingScalar()));
+            merge(check.getG(), check.getGScalars(), c, baseIndex, bases, baseScalars);
+            merge(check.getH(), check.getHScalars(), c, baseIndex, bases, baseScalars);
+            for (Scalar s : check.getScalars()) {
+                scalars.add(c.multiply(s));
+            }
+            points.addAll(check.getPoints());
+        }
+
+        scalars.add(blindingScalar);
+        scalars.addAll(baseScalars);
+        points.add(pedersenCommitment.getBlinding());
+        points.addAll(bases);
+
+        try {
+            ECPoint check = Utils.multiscalarMul(bScalar, scalars, pedersenCommitment.getB(), points, pool);
+            return BulletProofs.getFactory().identity().equals(check);
+        } catch (Exception e) {
+            logger.error("Failed batch check", e);
+            return false;
+        }
+    }
+
+    private static void merge(List<ECPoint> generators, List<Scalar> coefficients, Scalar c, Map<ECPoint, Integer> baseIndex, List<ECPoint> bases, List<Scalar> baseScalars) {
+        for (int i = 0; i < coefficients.size(); i++) {
+            ECPoint p = generators.get(i);
+            Scalar s = c.multiply(coefficients.get(i));
+            Integer idx = baseIndex.get(p);
+            if (idx != null) {
+                baseScalars.set(idx, baseScalars.get(idx).add(s));
+            } else {
+                baseIndex.put(p, bases.size());
+                bases.add(p);
+                baseScalars.add(s);
+            }
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.weavechain.zk.bulletproofs;
+
+import com.weavechain.ec.Scalar;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.msgpack.core.MessageBufferPacker;
+import org.msgpack.core.MessageUnpacker;
+
+import java.io.IOException;
+
+@Getter
+@AllArgsConstructor
+public class BitChallenge {
+
+    private final Scalar y;
+
+    private final Scalar z;
+
+    public void pack(MessageBufferPacker packer) throws IOException {
+        packer.writePayload(y.toByteArray());
+        packer.writePayload(z.toByteArray());
+    }
+
+    public static BitChallenge unpack(MessageUnpacker unpacker) throws IOException {
+        Scalar y = BulletProofs.getFactory().fromBits(unpacker.readPayload(32));
+        Scalar z = BulletProofs.getFactory().fromBits(unpacker.readPayload(32));
+        return new BitChallenge(y, z);
+    }
+}
@@ -0,0 +1,34 @@
+package com.weavechain.zk.bulletproofs;
+
+import com.weavechain.ec.ECPoint;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.msgpack.core.MessageBufferPacker;
+import org.msgpack.core.MessageUnpacker;
+
+import java.io.IOException;
+
+// First message of a range proof party: its value commitment and the commitments to its bits and blinding vectors
+@Getter
+@AllArgsConstructor
+public class BitCommitment {
+
+    private final ECPoint V;
+
+    private final ECPoint A;
+
+    private final ECPoint S;
+
+    public void pack(MessageBufferPacker packer) throws IOException {
+        packer.writePayload(V.toByteArray());
+        packer.writePayload(A.toByteArray());
+        packer.writePayload(S.toByteArray());
+    }
+
+    public static BitCommitment unpack(MessageUnpacker unpacker) throws IOException {
+        ECPoint V = BulletProofs.getFactory().fromCompressed(unpacker.readPayload(32));
+        ECPoint A = BulletProofs.getFactory().fromCompressed(unpacker.readPayload(32));
+        ECPoint S = BulletProofs.getFactory().fromCompressed(unpacker.readPayload(32));
+        return new BitCommitment(V, A, S);
+    }
+}
@@ -1,68 +1,172 @@
 package com.weavechain.zk.bulletproofs;
 
-import com.github.aelstad.keccakj.fips202.Shake256;
 import com.weavechain.ec.ECPoint;
+import lombok.AllArgsConstructor;
 import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
-@Getter
 public class BulletProofGenerators {
 
-    private final int capacity; //TODO: compute generators size automatically?
+    static final Logger logger = LoggerFactory.getLogger(BulletProofGenerators.class);
 
+    @Getter
     private final int parties;
 
-    private final List<List<ECPoint>> g = new ArrayList<>();
+    // readers only see immutable snapshots, growth publishes a new one
+    private volatile Table table;
 
-    private final List<List<ECPoint>> h = new ArrayList<>();
+    // per party G and H chains, kept only by growable instances to continue the same stream
+    private final List<GeneratorsChain> gChains;
+
+    private final List<GeneratorsChain> hChains;
 
     public BulletProofGenerators(int capacity, int parties) throws IOException {
-        this.capacity = capacity;
+        this(capacity, parties, false);
+    }
+
+    public BulletProofGenerators(int capacity, int parties, boolean growable) throws IOException {
         this.parties = parties;
 
+        List<GeneratorsChain> gc = new ArrayList<>();
+        List<GeneratorsChain> hc = new ArrayList<>();
+        List<List<ECPoint>> g = new ArrayList<>();
+        List<List<ECPoint>> h = new ArrayList<>();
         for (int i = 0; i < parties; i++) {
-            byte[] label = new byte[5];
-            label[1] = (byte)(i & 0xFF);
-            label[2] = (byte)((i >> 8) & 0xFF);
-            label[3] = (byte)((i >> 16) & 0xFF);
-            label[4] = (byte)((i >> 24) & 0xFF);
-
-            label[0] = 'G';
-            Shake256 gDigest = new Shake256();
-            gDigest.getAbsorbStream().write("GeneratorsChain".getBytes(StandardCharsets.UTF_8));
-            gDigest.getAbsorbStream().write(label);
-
-            byte[] gpoints = new byte[32 * capacity];
-            gDigest.getSqueezeStream().read(gpoints);
-            gDigest.reset();
-
-            label[0] = 'H';
-            Shake256 hDigest = new Shake256();
-            hDigest.getAbsorbStream().write("GeneratorsChain".getBytes(StandardCharsets.UTF_8));
-            hDigest.getAbsorbStream().write(label);
-
-            byte[] hpoints = new byte[32 * capacity];
-            hDigest.getSqueezeStream().read(hpoints);
-            hDigest.reset();
-
-            List<ECPoint> ge = new ArrayList<>();
-            List<ECPoint> he = new ArrayList<>();
-            for (int j = 0; j < capacity; j++) {
-                ge.add(BulletProofs.getFactory().fromUniformBytes(Arrays.copyOfRange(gpoints, j * 32, j * 32 + 32)));
-                he.add(BulletProofs.getFactory().fromUniformBytes(Arrays.copyOfRange(hpoints, j * 32, j * 32 + 32)));
+            GeneratorsChain gChain = new GeneratorsChain((byte)'G', i);
+            GeneratorsChain hChain = new GeneratorsChain((byte)'H', i);
+
+            g.add(Collections.unmodifiableList(gChain.next(capacity)));
+            h.add(Collections.unmodifiableList(hChain.next(capacity)));
+
+            gc.add(gChain);
+            hc.add(hChain);
+        }
+
+        this.table = new Table(capacity, Collections.unmodifiableList(g), Collections.unmodifiableList(h));
+        this.gChains = growable ? gc : null;
+        this.hChains = growable ? hc : null;
+    }
+
+    BulletProofGenerators(int capacity, int parties, List<List<ECPoint>> g, List<List<ECPoint>> h) {
+        this(capacity, parties, g, h, null, null);
+    }
+
+    BulletProofGenerators(int capacity, int parties, List<List<ECPoint>> g, List<List<ECPoint>> h, List<GeneratorsChain> gChains, List<GeneratorsChain> hChains) {
+        this.parties = parties;
+        this.table = new Table(capacity, g, h);
+        this.gChains = gChains;
+        this.hChains = hChains;
+    }
+
+    public static BulletProofGenerators growable(int initialCapacity, int parties) throws IOException {
+        return new BulletProofGenerators(initialCapacity, parties, true);
+    }
+
+    public int getCapacity() {
+        return table.capacity;
+    }
+
+    public List<List<ECPoint>> getG() {
+        return table.g;
+    }
+
+    public List<List<ECPoint>> getH() {
+        return table.h;
+    }
+
+    public boolean isGrowable() {
+        return gChains != null;
+    }
+
+    public boolean ensureCapacity(int size) {
+        if (table.capacity >= size) {
+            return true;
+        } else if (!isGrowable()) {
+            return false;
+        }
+
+        synchronized (gChains) {
+            Table current = table;
+            if (current.capacity >= size) {
+                return true;
             }
 
-            g.add(ge);
-            h.add(he);
+            int capacity = Utils.nextPowerOf2(size);
+            int count = capacity - current.capacity;
+            try {
+                List<List<ECPoint>> g = new ArrayList<>();
+                List<List<ECPoint>> h = new ArrayList<>();
+                for (int i = 0; i < parties; i++) {
+                    List<ECPoint> ge = new ArrayList<>(capacity);
+                    ge.addAll(current.g.get(i));
+                    ge.addAll(gChains.get(i).next(count));
+
+                    List<ECPoint> he = new ArrayList<>(capacity);
+                    he.addAll(current.h.get(i));
+                    he.addAll(hChains.get(i).next(count));
+
+                    g.add(Collections.unmodifiableList(ge));
+                    h.add(Collections.unmodifiableList(he));
+                }
+
+                table = new Table(capacity, Collections.unmodifiableList(g), Collections.unmodifiableList(h));
+                return true;
+            } catch (IOException e) {
+                logger.error("Failed growing generators", e);
+                return false;
+            }
         }
     }
 
+    public BulletProofGenerators prefix(int size) {
+        Table current = table;
+        if (size >= current.capacity) {
+            return this;
+        }
+
+        List<List<ECPoint>> pg = new ArrayList<>();
+        List<List<ECPoint>> ph = new ArrayList<>();
+        for (int i = 0; i < parties; i++) {
+            pg.add(current.g.get(i).subList(0, size));
+            ph.add(current.h.get(i).subList(0, size));
+        }
+        return new BulletProofGenerators(size, parties, Collections.unmodifiableList(pg), Collections.unmodifiableList(ph));
+    }
+
     public BulletProofGenShare getShare(int share) {
         return new BulletProofGenShare(this, share);
     }
+
+    // the first size G generators of each of the first count parties, party after party, as used by aggregated proofs
+    public List<ECPoint> getAggregatedG(int size, int count) {
+        return aggregated(table.g, size, count);
+    }
+
+    public List<ECPoint> getAggregatedH(int size, int count) {
+        return aggregated(table.h, size, count);
+    }
+
+    private static List<ECPoint> aggregated(List<List<ECPoint>> shares, int size, int count) {
+        List<ECPoint> result = new ArrayList<>(size * count);
+        for (int j = 0; j < count; j++) {
+            result.addAll(shares.get(j).subList(0, size));
+        }
+        return result;
+    }
+
+    @AllArgsConstructor
+    private static class Table {
+
+        private final int capacity;
+
+        private final List<List<ECPoint>> g;
+
+        private final List<List<ECPoint>> h;
+    }
 }
@@ -10,6 +10,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
@@ -29,6 +30,16 @@ public class BulletProofs {
     @Setter
     public static ECPointFactory factory = new Curve25519Factory();
 
+    //shared by the string based generate/verify calls, set to null to build fresh generators on each call
+    @Getter
+    @Setter
+    private GeneratorsCache generatorsCache = GeneratorsCache.getInstance();
+
+    //verify gadgets exposing their verifier through templates cached by type and params
+    @Getter
+    @Setter
+    private boolean useCircuitTemplates = true;
+
     public BulletProofs() {
     }
 
@@ -72,7 +83,7 @@ public class BulletProofs {
         if (gadget != null) {
             Scalar rnd = Utils.randomScalar();
             GadgetParams params = gadget.unpackParams(gadgetParams, value);
-            BulletProofGenerators generators = new BulletProofGenerators(nGenerators != null ? nGenerators : DEFAULT_GENERATORS_SIZE, 1);
+            BulletProofGenerators generators = getGenerators(nGenerators != null ? nGenerators : DEFAULT_GENERATORS_SIZE);
             return gadget.generate(value, params, rnd, pedersenCommitment, generators);
         } else {
             logger.error("Unknown gadget type " + gadgetType);
@@ -96,8 +107,22 @@ public class BulletProofs {
         Gadget gadget = gadgetType != null ? gadgets.get(gadgetType.toLowerCase(Locale.ROOT)) : null;
         if (gadget != null) {
             GadgetParams params = gadget.unpackParams(gadgetParams, null);
-            BulletProofGenerators generators = new BulletProofGenerators(nGenerators != null ? nGenerators : DEFAULT_GENERATORS_SIZE, 1);
-            return gadget.verify(params, Proof.deserialize(Base58.decode(proof)), pedersenCommitment, generators);
+            BulletProofGenerators generators = getGenerators(nGenerators != null ? nGenerators : DEFAULT_GENERATORS_SIZE);
+            return verify(gadget, params, Proof.deserialize(Base58.decode(proof)), pedersenCommitment, generators);
+        } else {
+            logger.error("Unknown gadget type " + gadgetType);
+            throw new IllegalArgumentException("Unknown gadget type " + gadgetType);
+        }
+    }
+
+    // the proof in the fixed layout binary encoding, read in place
+    @SuppressWarnings("unchecked")
+    public boolean verify(String gadgetType, String gadgetParams, ByteBuffer proof, PedersenCommitment pedersenCommitment, Integer nGenerators) throws IOException {
+        Gadget gadget = gadgetType != null ? gadgets.get(gadgetType.toLowerCase(Locale.ROOT)) : null;
+        if (gadget != null) {
+            GadgetParams params = gadget.unpackParams(gadgetParams, null);
+            BulletProofGenerators generators = getGenerators(nGenerators != null ? nGenerators : DEFAULT_GENERATORS_SIZE);
+            return verify(gadget, params, Proof.read(proof), pedersenCommitment, generators);
         } else {
             logger.error("Unknown gadget type " + gadgetType);
             throw new IllegalArgumentException("Unknown gadget type " + gadgetType);
@@ -109,7 +134,7 @@ public class BulletProofs {
         Gadget gadget = gadgetType != null ? gadgets.get(gadgetType.name()) : null;
         if (gadget != null) {
             try {
-                return gadget.verify(gadgetParams, proof, pedersenCommitment, generators);
+                return verify(gadget, gadgetParams, proof, pedersenCommitment, generators);
             } catch (Exception e) {
                 logger.error("Failed verfification", e);
                 return false;
@@ -120,6 +145,22 @@ public class BulletProofs {
         }
     }
 
+    @SuppressWarnings("unchecked")
+    private boolean verify(Gadget gadget, GadgetParams params, Proof proof, PedersenCommitment pedersenCommitment, BulletProofGenerators generators) {
+        if (useCircuitTemplates) {
+            String key = CircuitTemplate.key(gadget.getType(), params, proof.getCommitments().size());
+            CircuitTemplate template = CircuitTemplate.get(key, () -> gadget.verifier(params, proof));
+            if (template != null) {
+                return template.verify(proof, pedersenCommitment, generators);
+            }
+        }
+        return gadget.verify(params, proof, pedersenCommitment, generators);
+    }
+
+    private BulletProofGenerators getGenerators(int size) throws IOException {
+        return generatorsCache != null ? generatorsCache.get(size, 1) : new BulletProofGenerators(size, 1);
+    }
+
     public GadgetParams paramsWithValue(GadgetType gadgetType, String gadgetParams, Object value) {
         Gadget gadget = gadgetType != null ? gadgets.get(gadgetType.name()) : null;
         if (gadget != null) {
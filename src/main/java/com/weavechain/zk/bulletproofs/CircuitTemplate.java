@@ -0,0 +1,122 @@
+package com.weavechain.zk.bulletproofs;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.weavechain.ec.ECPoint;
+import com.weavechain.ec.Scalar;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+// The constraint structure of a circuit (number of multipliers and commitments, compiled weights) recorded once
+//  from a fully built constraint system. Verifiers created from a template only bind the commitments and provers
+//  only take the witness, the weights are evaluated at each proof's z without rebuilding or recompiling the constraints.
+@Getter
+public class CircuitTemplate {
+
+    public static final int CACHE_SIZE = 1024;
+
+    private static final Cache<String, CircuitTemplate> cache = Caffeine.newBuilder()
+            .maximumSize(CACHE_SIZE)
+            .build();
+
+    // cached for keys whose circuit cannot be recorded, so the gadget verifier is not rebuilt on every proof
+    private static final CircuitTemplate NONE = new CircuitTemplate(0, 0, null, null);
+
+    private final int multipliers;
+
+    private final int committed;
+
+    private final ConstraintMatrices matrices;
+
+    // the recorded transcript before its commitments (domain separators, version), copied for each proof
+    @Getter(AccessLevel.NONE)
+    private final Transcript transcript;
+
+    CircuitTemplate(int multipliers, int committed, ConstraintMatrices matrices, Transcript transcript) {
+        this.multipliers = multipliers;
+        this.committed = committed;
+        this.matrices = matrices;
+        this.transcript = transcript;
+    }
+
+    // a copy of the transcript the recorded circuit started its commitments from
+    public Transcript transcript() {
+        return transcript.copy();
+    }
+
+    // the verifier must have all its commitments and constraints, randomized constraints cannot be recorded
+    public static CircuitTemplate record(Verifier verifier) {
+        return verifier.template();
+    }
+
+    // the prover must have all its commitments and constraints, usually taken after a first proof of the shape
+    public static CircuitTemplate record(Prover prover) {
+        return prover.template();
+    }
+
+    public static String key(GadgetType type, GadgetParams params, int commitments) {
+        return type.name() + ":" + params.serializeNoValue() + ":" + commitments;
+    }
+
+    // the recorder builds the circuit for the key and runs only on a cache miss,
+    //  null when it has no verifier or one with randomized constraints, which cannot be recorded and is remembered for the key
+    public static CircuitTemplate get(String key, Supplier<Verifier> recorder) {
+        CircuitTemplate result = cache.getIfPresent(key);
+        if (result == null) {
+            Verifier verifier = recorder.get();
+            result = verifier == null || verifier.hasRandomizedConstraints() ? NONE : record(verifier);
+
+            CircuitTemplate existing = cache.asMap().putIfAbsent(key, result);
+            if (existing != null) {
+                result = existing;
+            }
+        }
+        return result != NONE ? result : null;
+    }
+
+    public static void clear() {
+        cache.invalidateAll();
+    }
+
+    public Verifier verifier(Transcript transcript, List<ECPoint> commitments) {
+        if (commitments.size() != committed) {
+            throw new IllegalArgumentException("Commitments size mismatch " + commitments.size() + " != " + committed);
+        }
+
+        Verifier verifier = new Verifier(transcript, this);
+        for (ECPoint commitment : commitments) {
+            verifier.commit(commitment);
+        }
+        return verifier;
+    }
+
+    public Prover prover(Transcript transcript, PedersenCommitment pedersenCommitment) {
+        return new Prover(transcript, pedersenCommitment, this);
+    }
+
+    // Proves a new witness for the recorded circuit: committed values with their blindings and the multiplier gate values
+    //  in allocation order (output may be null to use left * right)
+    public Proof prove(List<Scalar> values, List<Scalar> blindings, List<Scalar> left, List<Scalar> right, List<Scalar> output, PedersenCommitment pedersenCommitment, BulletProofGenerators generators) {
+        if (values.size() != committed) {
+            throw new IllegalArgumentException("Values size mismatch " + values.size() + " != " + committed);
+        }
+
+        Prover prover = prover(transcript(), pedersenCommitment);
+        List<Commitment> commitments = prover.commitAll(values, blindings);
+        prover.assign(left, right, output);
+
+        List<ECPoint> points = new ArrayList<>(commitments.size());
+        for (Commitment c : commitments) {
+            points.add(c.getCommitment());
+        }
+        return new Proof(prover.prove(generators), points);
+    }
+
+    public boolean verify(Proof proof, PedersenCommitment pedersenCommitment, BulletProofGenerators generators) {
+        return verifier(transcript(), proof.getCommitments()).verify(proof, pedersenCommitment, generators);
+    }
+}
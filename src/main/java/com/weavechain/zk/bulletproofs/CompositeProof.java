@@ -0,0 +1,219 @@
+package com.weavechain.zk.bulletproofs;
+
+import com.weavechain.ec.ECPoint;
+import com.weavechain.ec.Scalar;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.msgpack.core.MessageBufferPacker;
+import org.msgpack.core.MessagePack;
+import org.msgpack.core.MessageUnpacker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Several gadgets proven in a single R1CS proof over shared committed values: one transcript, one inner-product argument
+//  and one verification MSM. The proof commitments are the shared ones first, then the ones each gadget added, in gadget order
+@Getter
+@AllArgsConstructor
+public class CompositeProof {
+
+    static final Logger logger = LoggerFactory.getLogger(CompositeProof.class);
+
+    private final Proof proof;
+
+    // number of shared commitments at the start of the proof commitments
+    private final int shared;
+
+    // number of commitments added by each gadget
+    private final List<Integer> gadgetCommitments;
+
+    public static Builder builder(PedersenCommitment pedersenCommitment) {
+        return new Builder(new Transcript(), pedersenCommitment);
+    }
+
+    public static Statement statement() {
+        return new Statement(new Transcript());
+    }
+
+    private static void appendPart(Transcript transcript, Gadget<?> gadget, GadgetParams params) {
+        transcript.append("gadget", gadget.getType().name());
+        transcript.append("params", params.serializeNoValue());
+    }
+
+    public static class Builder {
+
+        private final Transcript transcript;
+
+        private final Prover prover;
+
+        private final List<Allocated> shared = new ArrayList<>();
+
+        private final List<Integer> gadgetCommitments = new ArrayList<>();
+
+        public Builder(Transcript transcript, PedersenCommitment pedersenCommitment) {
+            this.transcript = transcript;
+            this.prover = new Prover(transcript, pedersenCommitment);
+        }
+
+        // shared values are committed before any gadget, returns the input index gadgets refer to
+        public int commit(BigInteger value, Scalar blinding) {
+            if (!gadgetCommitments.isEmpty()) {
+                throw new IllegalStateException("Shared values must be committed before adding gadgets");
+            }
+
+            Commitment commitment = prover.commit(Utils.scalar(value), blinding);
+            shared.add(new Allocated(commitment.getVariable(), value));
+            return shared.size() - 1;
+        }
+
+        public <T extends GadgetParams> Builder add(Gadget<T> gadget, T params, Object value, Scalar rnd, int... inputs) {
+            List<Allocated> allocated = new ArrayList<>(inputs.length);
+            for (int i : inputs) {
+                allocated.add(shared.get(i));
+            }
+
+            appendPart(transcript, gadget, params);
+
+            int before = prover.getCommitments().size();
+            if (!gadget.constrain(prover, params, value, rnd, allocated)) {
+                throw new IllegalArgumentException("Gadget " + gadget.getType().name() + " does not support composition");
+            }
+            gadgetCommitments.add(prover.getCommitments().size() - before);
+            return this;
+        }
+
+        public CompositeProof prove(BulletProofGenerators generators) {
+            R1CSProof proof = prover.prove(generators);
+            return new CompositeProof(new Proof(proof, new ArrayList<>(prover.getCommitments())), shared.size(), Collections.unmodifiableList(new ArrayList<>(gadgetCommitments)));
+        }
+    }
+
+    // The public side of a composite proof: the gadgets with their params and the shared inputs each one uses.
+    //  Each verification starts from a copy of the initial transcript, so a statement can check several proofs
+    public static class Statement {
+
+        private final Transcript transcript;
+
+        private final List<Part> parts = new ArrayList<>();
+
+        public Statement(Transcript transcript) {
+            this.transcript = transcript;
+        }
+
+        public <T extends GadgetParams> Statement add(Gadget<T> gadget, T params, int... inputs) {
+            parts.add(new Part(gadget, params, inputs));
+            return this;
+        }
+
+        @SuppressWarnings("unchecked")
+        public boolean verify(CompositeProof proof, PedersenCommitment pedersenCommitment, BulletProofGenerators generators) {
+            List<ECPoint> commitments = proof.getProof().getCommitments();
+            if (proof.getGadgetCommitments().size() != parts.size()) {
+                return false;
+            }
+            int total = proof.getShared();
+            for (Integer count : proof.getGadgetCommitments()) {
+                total += count;
+            }
+            if (proof.getShared() < 0 || total != commitments.size()) {
+                return false;
+            }
+
+            try {
+                Transcript transcript = this.transcript.copy();
+                Verifier verifier = new Verifier(transcript);
+
+                List<Variable> shared = new ArrayList<>(proof.getShared());
+                for (int i = 0; i < proof.getShared(); i++) {
+                    shared.add(verifier.commit(commitments.get(i)));
+                }
+
+                int offset = proof.getShared();
+                for (int j = 0; j < parts.size(); j++) {
+                    Part part = parts.get(j);
+
+                    List<Variable> inputs = new ArrayList<>(part.inputs.length);
+                    for (int i : part.inputs) {
+                        if (i < 0 || i >= shared.size()) {
+                            return false;
+                        }
+                        inputs.add(shared.get(i));
+                    }
+
+                    appendPart(transcript, part.gadget, part.params);
+
+                    int count = proof.getGadgetCommitments().get(j);
+                    int before = verifier.getCommitments().size();
+                    if (!part.gadget.constrain(verifier, part.params, inputs, commitments.subList(offset, offset + count))) {
+                        logger.error("Gadget " + part.gadget.getType().name() + " does not support composition");
+                        return false;
+                    }
+                    if (verifier.getCommitments().size() - before != count) {
+                        return false;
+                    }
+                    offset += count;
+                }
+
+                return verifier.verify(proof.getProof(), pedersenCommitment, generators);
+            } catch (Exception e) {
+                logger.error("Failed verification", e);
+                return false;
+            }
+        }
+    }
+
+    @AllArgsConstructor
+    private static class Part {
+
+        private final Gadget gadget;
+
+        private final GadgetParams params;
+
+        private final int[] inputs;
+    }
+
+    public static CompositeProof deserialize(byte[] data) throws IOException {
+        MessageUnpacker unpacker = MessagePack.newDefaultUnpacker(data);
+        int shared = unpacker.unpackInt();
+
+        List<Integer> gadgetCommitments = new ArrayList<>();
+        int parts = unpacker.unpackInt();
+        for (int i = 0; i < parts; i++) {
+            gadgetCommitments.add(unpacker.unpackInt());
+        }
+
+        List<ECPoint> commitments = new ArrayList<>();
+        int len = unpacker.unpackInt();
+        for (int i = 0; i < len; i++) {
+            commitments.add(BulletProofs.getFactory().fromCompressed(unpacker.readPayload(32)));
+        }
+        R1CSProof proof = R1CSProof.unpackCompact(unpacker);
+        unpacker.close();
+
+        return new CompositeProof(new Proof(proof, commitments), shared, Collections.unmodifiableList(gadgetCommitments));
+    }
+
+    public byte[] serialize() throws IOException {
+        MessageBufferPacker packer = MessagePack.newDefaultBufferPacker();
+        packer.packInt(shared);
+
+        packer.packInt(gadgetCommitments.size());
+        for (Integer count : gadgetCommitments) {
+            packer.packInt(count);
+        }
+
+        packer.packInt(proof.getCommitments().size());
+        for (ECPoint p : proof.getCommitments()) {
+            packer.writePayload(p.toByteArray());
+        }
+        proof.getProof().packCompact(packer);
+        packer.close();
+
+        return packer.toMessageBuffer().toByteArray();
+    }
+}
@@ -0,0 +1,92 @@
+package com.weavechain.zk.bulletproofs;
+
+import com.weavechain.ec.Scalar;
+import com.weavechain.ec.ScalarVector;
+import com.weavechain.ec.SparseScalarMatrix;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+// The linear constraints compiled once into sparse W_L, W_R, W_O, W_V matrices and the constant vector c.
+//  Matrices are stored transposed (one row per variable, one column per constraint), so flattening
+//  z^T W is a gather per output lane that can run in parallel over blocks of lanes.
+@Getter
+public class ConstraintMatrices {
+
+    private final int multipliers;
+
+    private final int committed;
+
+    private final int constraints;
+
+    private final SparseScalarMatrix wL;
+
+    private final SparseScalarMatrix wR;
+
+    private final SparseScalarMatrix wO;
+
+    private final SparseScalarMatrix wV;
+
+    private final ScalarVector wc;
+
+    private ConstraintMatrices(int multipliers, int committed, int constraints, SparseScalarMatrix wL, SparseScalarMatrix wR, SparseScalarMatrix wO, SparseScalarMatrix wV, ScalarVector wc) {
+        this.multipliers = multipliers;
+        this.committed = committed;
+        this.constraints = constraints;
+        this.wL = wL;
+        this.wR = wR;
+        this.wO = wO;
+        this.wV = wV;
+        this.wc = wc;
+    }
+
+    public static ConstraintMatrices compile(List<LinearCombination> constraints, int multipliers, int committed) {
+        int q = constraints.size();
+
+        SparseScalarMatrix.Builder wL = SparseScalarMatrix.builder(multipliers, q);
+        SparseScalarMatrix.Builder wR = SparseScalarMatrix.builder(multipliers, q);
+        SparseScalarMatrix.Builder wO = SparseScalarMatrix.builder(multipliers, q);
+        SparseScalarMatrix.Builder wV = SparseScalarMatrix.builder(committed, q);
+        ScalarVector wc = new ScalarVector(q);
+
+        for (int j = 0; j < q; j++) {
+            for (Term t : constraints.get(j).getTerms()) {
+                switch (t.getVariable().getType()) {
+                    case multiplier_left:
+                        wL.add(t.getVariable().getIndex(), j, t.getScalar());
+                        break;
+                    case multiplier_right:
+                        wR.add(t.getVariable().getIndex(), j, t.getScalar());
+                        break;
+                    case multiplier_output:
+                        wO.add(t.getVariable().getIndex(), j, t.getScalar());
+                        break;
+                    case committed:
+                        wV.sub(t.getVariable().getIndex(), j, t.getScalar());
+                        break;
+                    case one:
+                        wc.subAt(j, t.getScalar());
+                        break;
+                    case one_minus:
+                        wc.addAt(j, t.getScalar());
+                        break;
+                }
+            }
+        }
+
+        return new ConstraintMatrices(multipliers, committed, q, wL.build(), wR.build(), wO.build(), wV.build(), wc);
+    }
+
+    // wL, wR, wO (zero padded up to size) and wV weighted by z, z^2, ..., z^q, the constant term is the VecPoly c
+    public VecPoly flatten(Scalar z, int size, ForkJoinPool pool) {
+        ScalarVector expz = ScalarVector.powers(z, constraints).mul(z);
+
+        VecPoly result = new VecPoly(wc.innerProduct(expz));
+        result.add(wL.multiply(expz, size, pool));
+        result.add(wR.multiply(expz, size, pool));
+        result.add(wO.multiply(expz, size, pool));
+        result.add(wV.multiply(expz, committed, pool));
+        return result;
+    }
+}
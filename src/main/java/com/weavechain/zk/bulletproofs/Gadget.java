@@ -1,7 +1,10 @@
 package com.weavechain.zk.bulletproofs;
 
+import com.weavechain.ec.ECPoint;
 import com.weavechain.ec.Scalar;
 
+import java.util.List;
+
 public interface Gadget<T extends GadgetParams> {
 
     GadgetType getType();
@@ -17,4 +20,24 @@ public interface Gadget<T extends GadgetParams> {
     Proof generate(Object value, T params, Scalar rnd, PedersenCommitment pedersenCommitment, BulletProofGenerators generators);
 
     boolean verify(T params, Proof proof, PedersenCommitment pedersenCommitment, BulletProofGenerators generators);
+
+    // The verifier verify() would check the proof with, fully constrained but not yet verified.
+    //  Gadgets returning it are verified through cached CircuitTemplates, so it must not depend on anything but
+    //  the params without value and the number of commitments. The template starts from its transcript as it was
+    //  before the first commitment, anything appended later must be a commitment. Returns null when not supported
+    default Verifier verifier(T params, Proof proof) {
+        return null;
+    }
+
+    // Composition (see CompositeProof): adds the gadget constraints over inputs already committed on a prover shared with
+    //  other gadgets, committing on the same prover any further value it needs. Returns false when not supported
+    default boolean constrain(Prover prover, T params, Object value, Scalar rnd, List<Allocated> inputs) {
+        return false;
+    }
+
+    // Verifier side of the composition: inputs are the shared committed variables, commitments the points of the values
+    //  the gadget committed itself, in the order it committed them on the prover side
+    default boolean constrain(Verifier verifier, T params, List<Variable> inputs, List<ECPoint> commitments) {
+        return false;
+    }
 }
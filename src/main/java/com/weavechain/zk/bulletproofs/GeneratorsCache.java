@@ -0,0 +1,110 @@
+package com.weavechain.zk.bulletproofs;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class GeneratorsCache {
+
+    static final Logger logger = LoggerFactory.getLogger(GeneratorsCache.class);
+
+    // total number of generator points (capacity * parties) kept alive by the shared instance
+    public static final long DEFAULT_MAX_POINTS = 1L << 20;
+
+    @Getter
+    private static final GeneratorsCache instance = new GeneratorsCache(DEFAULT_MAX_POINTS);
+
+    private final Cache<Key, BulletProofGenerators> cache;
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong prefixHits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    public GeneratorsCache(long maxPoints) {
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxPoints)
+                .weigher((Key k, BulletProofGenerators v) -> (int)Math.min(Integer.MAX_VALUE, (long)k.capacity * k.parties))
+                .build();
+    }
+
+    public BulletProofGenerators get(int capacity, int parties) throws IOException {
+        int size = Utils.nextPowerOf2(capacity);
+
+        BulletProofGenerators generators = cache.getIfPresent(new Key(size, parties));
+        if (generators != null) {
+            hits.incrementAndGet();
+            return generators.prefix(capacity);
+        }
+
+        for (Map.Entry<Key, BulletProofGenerators> it : cache.asMap().entrySet()) {
+            if (it.getKey().parties == parties && it.getKey().capacity >= capacity) {
+                prefixHits.incrementAndGet();
+                return it.getValue().prefix(capacity);
+            }
+        }
+
+        try {
+            generators = cache.get(new Key(size, parties), (k) -> {
+                misses.incrementAndGet();
+                try {
+                    return new BulletProofGenerators(k.capacity, k.parties);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            logger.error("Failed computing generators", e);
+            throw e.getCause();
+        }
+        return generators.prefix(capacity);
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getPrefixHits() {
+        return prefixHits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public double getHitRate() {
+        long found = hits.get() + prefixHits.get();
+        long total = found + misses.get();
+        return total > 0 ? (double)found / total : 0.0;
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    public void clear() {
+        cache.invalidateAll();
+    }
+
+    @EqualsAndHashCode
+    private static class Key {
+
+        private final int capacity;
+
+        private final int parties;
+
+        private Key(int capacity, int parties) {
+            this.capacity = capacity;
+            this.parties = parties;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.weavechain.zk.bulletproofs;
+
+import com.github.aelstad.keccakj.fips202.Shake256;
+import com.weavechain.ec.ECPoint;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+class GeneratorsChain {
+
+    public static final String LABEL = "GeneratorsChain";
+
+    private final InputStream squeeze;
+
+    private long position = 0;
+
+    GeneratorsChain(byte kind, int party) throws IOException {
+        byte[] label = new byte[5];
+        label[0] = kind;
+        label[1] = (byte)(party & 0xFF);
+        label[2] = (byte)((party >> 8) & 0xFF);
+        label[3] = (byte)((party >> 16) & 0xFF);
+        label[4] = (byte)((party >> 24) & 0xFF);
+
+        Shake256 digest = new Shake256();
+        digest.getAbsorbStream().write(LABEL.getBytes(StandardCharsets.UTF_8));
+        digest.getAbsorbStream().write(label);
+
+        squeeze = digest.getSqueezeStream();
+    }
+
+    public long getPosition() {
+        return position;
+    }
+
+    public byte[] nextBytes(int count) throws IOException {
+        byte[] data = new byte[32 * count];
+        int read = 0;
+        while (read < data.length) {
+            read += squeeze.read(data, read, data.length - read);
+        }
+        position += count;
+        return data;
+    }
+
+    public void skip(int count) throws IOException {
+        while (count > 0) {
+            int step = Math.min(count, 1 << 15);
+            nextBytes(step);
+            count -= step;
+        }
+    }
+
+    public List<ECPoint> next(int count) throws IOException {
+        byte[] points = nextBytes(count);
+
+        List<ECPoint> result = new ArrayList<>(count);
+        for (int j = 0; j < count; j++) {
+            result.add(BulletProofs.getFactory().fromUniformBytes(Arrays.copyOfRange(points, j * 32, j * 32 + 32)));
+        }
+        return result;
+    }
+}
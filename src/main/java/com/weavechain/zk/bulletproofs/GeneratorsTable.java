@@ -0,0 +1,257 @@
+package com.weavechain.zk.bulletproofs;
+
+import com.weavechain.ec.ECPoint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+public class GeneratorsTable {
+
+    // Layout (big endian):
+    //   magic "BPGT" | int version | short label length | label | int capacity | int parties | 32 bytes digest
+    //   then for each party: capacity compressed G points followed by capacity compressed H points
+
+    static final Logger logger = LoggerFactory.getLogger(GeneratorsTable.class);
+
+    private static final byte[] MAGIC = "BPGT".getBytes(StandardCharsets.US_ASCII);
+
+    public static final int VERSION = 1;
+
+    public static final int POINT_SIZE = 32;
+
+    public static final int DIGEST_SIZE = 32;
+
+    // number of points per chain recomputed on load and compared against the file
+    public static final int VERIFY_PREFIX = 8;
+
+    public static void write(BulletProofGenerators generators, Path path) throws IOException {
+        int capacity = generators.getCapacity();
+        int parties = generators.getParties();
+        byte[] label = GeneratorsChain.LABEL.getBytes(StandardCharsets.UTF_8);
+
+        ByteBuffer points = ByteBuffer.allocate(2 * parties * capacity * POINT_SIZE);
+        for (int i = 0; i < parties; i++) {
+            for (ECPoint p : generators.getG().get(i)) {
+                points.put(p.toByteArray());
+            }
+            for (ECPoint p : generators.getH().get(i)) {
+                points.put(p.toByteArray());
+            }
+        }
+        points.flip();
+
+        ByteBuffer header = ByteBuffer.allocate(headerSize(label.length));
+        header.put(MAGIC);
+        header.putInt(VERSION);
+        header.putShort((short)label.length);
+        header.put(label);
+        header.putInt(capacity);
+        header.putInt(parties);
+        header.put(digest(label, capacity, parties, points.duplicate()));
+        header.flip();
+
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+            while (points.hasRemaining()) {
+                channel.write(points);
+            }
+            channel.force(true);
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public static BulletProofGenerators load(Path path) throws IOException {
+        return load(path, false, true);
+    }
+
+    public static BulletProofGenerators load(Path path, boolean growable, boolean verifyDigest) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        if (buffer.limit() < headerSize(0)) {
+            throw new IOException("Truncated generators table " + path);
+        }
+        byte[] magic = new byte[MAGIC.length];
+        buffer.get(magic);
+        if (!Arrays.equals(MAGIC, magic)) {
+            throw new IOException("Invalid generators table " + path);
+        }
+        int version = buffer.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported generators table version " + version);
+        }
+        int labelLength = buffer.getShort() & 0xFFFF;
+        if (buffer.limit() < headerSize(labelLength)) {
+            throw new IOException("Truncated generators table " + path);
+        }
+        byte[] label = new byte[labelLength];
+        buffer.get(label);
+        if (!GeneratorsChain.LABEL.equals(new String(label, StandardCharsets.UTF_8))) {
+            throw new IOException("Unsupported generators label " + new String(label, StandardCharsets.UTF_8));
+        }
+        int capacity = buffer.getInt();
+        int parties = buffer.getInt();
+        byte[] expected = new byte[DIGEST_SIZE];
+        buffer.get(expected);
+
+        long size = 2L * parties * capacity * POINT_SIZE;
+        if (capacity < 0 || parties < 0 || size > Integer.MAX_VALUE || buffer.remaining() != size) {
+            throw new IOException("Truncated generators table " + path);
+        }
+
+        ByteBuffer points = buffer.slice();
+        if (verifyDigest && !MessageDigest.isEqual(expected, digest(label, capacity, parties, points.duplicate()))) {
+            throw new IOException("Generators table digest mismatch " + path);
+        }
+
+        List<GeneratorsChain> gc = new ArrayList<>();
+        List<GeneratorsChain> hc = new ArrayList<>();
+        List<List<ECPoint>> g = new ArrayList<>();
+        List<List<ECPoint>> h = new ArrayList<>();
+        int prefix = Math.min(VERIFY_PREFIX, capacity);
+        for (int i = 0; i < parties; i++) {
+            int offset = 2 * i * capacity * POINT_SIZE;
+            MappedPoints ge = new MappedPoints(points, offset, capacity);
+            MappedPoints he = new MappedPoints(points, offset + capacity * POINT_SIZE, capacity);
+
+            GeneratorsChain gChain = new GeneratorsChain((byte)'G', i);
+            GeneratorsChain hChain = new GeneratorsChain((byte)'H', i);
+            if (!ge.matches(gChain.next(prefix)) || !he.matches(hChain.next(prefix))) {
+                throw new IOException("Generators table does not match the derivation " + path);
+            }
+
+            if (growable) {
+                gChain.skip(capacity - prefix);
+                hChain.skip(capacity - prefix);
+                gc.add(gChain);
+                hc.add(hChain);
+            }
+
+            g.add(Collections.unmodifiableList(ge));
+            h.add(Collections.unmodifiableList(he));
+        }
+
+        return new BulletProofGenerators(
+                capacity,
+                parties,
+                Collections.unmodifiableList(g),
+                Collections.unmodifiableList(h),
+                growable ? gc : null,
+                growable ? hc : null
+        );
+    }
+
+    public static BulletProofGenerators loadOrCreate(Path path, int capacity, int parties) throws IOException {
+        if (Files.exists(path)) {
+            try {
+                BulletProofGenerators generators = load(path);
+                if (generators.getCapacity() >= capacity && generators.getParties() == parties) {
+                    return generators.prefix(capacity);
+                }
+            } catch (IOException e) {
+                logger.warn("Ignoring generators table " + path, e);
+            }
+        }
+
+        BulletProofGenerators generators = new BulletProofGenerators(capacity, parties);
+        write(generators, path);
+        return generators;
+    }
+
+    private static int headerSize(int labelLength) {
+        return MAGIC.length + Integer.BYTES + Short.BYTES + labelLength + 2 * Integer.BYTES + DIGEST_SIZE;
+    }
+
+    private static byte[] digest(byte[] label, int capacity, int parties, ByteBuffer points) throws IOException {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA3-256");
+            md.update(label);
+            md.update(ByteBuffer.allocate(2 * Integer.BYTES).putInt(capacity).putInt(parties).array());
+            md.update(points);
+            return md.digest();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private static class MappedPoints extends AbstractList<ECPoint> implements RandomAccess {
+
+        private final ByteBuffer buffer;
+
+        private final int offset;
+
+        private final int size;
+
+        private final AtomicReferenceArray<ECPoint> decoded;
+
+        private MappedPoints(ByteBuffer buffer, int offset, int size) {
+            this.buffer = buffer;
+            this.offset = offset;
+            this.size = size;
+            this.decoded = new AtomicReferenceArray<>(size);
+        }
+
+        @Override
+        public ECPoint get(int index) {
+            ECPoint point = decoded.get(index);
+            if (point == null) {
+                point = BulletProofs.getFactory().fromCompressed(bytes(index)).decompress();
+                if (point == null) {
+                    throw new IllegalStateException("Invalid generator point " + index);
+                }
+                decoded.compareAndSet(index, null, point);
+            }
+            return point;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        private byte[] bytes(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+            }
+
+            byte[] data = new byte[POINT_SIZE];
+            int start = offset + index * POINT_SIZE;
+            for (int i = 0; i < POINT_SIZE; i++) {
+                data[i] = buffer.get(start + i);
+            }
+            return data;
+        }
+
+        private boolean matches(List<ECPoint> expected) {
+            for (int i = 0; i < expected.size(); i++) {
+                if (!Arrays.equals(expected.get(i).toByteArray(), bytes(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
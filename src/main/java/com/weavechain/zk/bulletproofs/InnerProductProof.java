@@ -2,6 +2,7 @@ package com.weavechain.zk.bulletproofs;
 
 import com.weavechain.ec.ECPoint;
 import com.weavechain.ec.Scalar;
+import com.weavechain.ec.ScalarVector;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import org.msgpack.core.MessageBufferPacker;
@@ -9,12 +10,24 @@ import org.msgpack.core.MessageUnpacker;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
 
 @Getter
 @AllArgsConstructor
 public class InnerProductProof {
 
+    // rounds with fewer elements per half run sequentially even when a pool is given
+    public static final int PARALLEL_THRESHOLD = 256;
+
+    // points folded by a single task
+    public static final int PARALLEL_CHUNK = 64;
+
     private final List<ECPoint> L;
 
     private final List<ECPoint> R;
@@ -58,6 +71,11 @@ public class InnerProductProof {
     }
 
     public IPPVer scalarsVer(int n, Transcript transcript) {
+        return scalarsVer(n, transcript, null, null);
+    }
+
+    // extra, when given, is inverted in the same batch as the challenges and returned as IPPVer.extra_inv
+    public IPPVer scalarsVer(int n, Transcript transcript, Scalar extra, ForkJoinPool pool) {
         int logN = L.size();
         if (logN >= 32 || n != (1 << logN)) {
             return null;
@@ -66,9 +84,7 @@ public class InnerProductProof {
         transcript.append("dom-sep", "ipp");
         transcript.append("n", n);
 
-        List<Scalar> challenges = new ArrayList<>();
-        List<Scalar> invChallenges = new ArrayList<>();
-        Scalar allInv = null;
+        List<Scalar> challenges = new ArrayList<>(logN + 1);
         for (int i = 0; i < L.size(); i++) {
             if (!transcript.validateAndAppend("L", L.get(i))) {
                 return null;
@@ -77,30 +93,41 @@ public class InnerProductProof {
                 return null;
             }
 
-            Scalar c = transcript.challengeScalar("u");
-            challenges.add(c);
-            Scalar cinv = c.invert();
-            invChallenges.add(cinv);
-            allInv = allInv != null ? allInv.multiply(cinv) : cinv;
+            challenges.add(transcript.challengeScalar("u"));
         }
-
-        for (int i = 0; i < logN; i++) {
-            challenges.set(i, challenges.get(i).multiply(challenges.get(i)));
-            invChallenges.set(i, invChallenges.get(i).multiply(invChallenges.get(i)));
+        if (extra != null) {
+            challenges.add(extra);
         }
 
-        List<Scalar> s = new ArrayList<>();
-        s.add(allInv != null ? allInv : BulletProofs.getFactory().one());
-        for (int i = 1; i < n; i++) {
-            int logI = (32 - 1 - Integer.numberOfLeadingZeros(i));
-            int k = 1 << logI;
-            s.add(s.get(i - k).multiply(challenges.get(logN - logI - 1)));
+        ScalarVector inv;
+        try {
+            inv = ScalarVector.from(challenges).invert();
+        } catch (ArithmeticException e) {
+            return null;
         }
 
-        return new IPPVer(challenges, invChallenges, s);
+        ScalarVector u = ScalarVector.from(challenges.subList(0, logN));
+        ScalarVector u_inv = inv.copy(0, logN);
+        Scalar allInv = u_inv.product();
+        ScalarVector u_sq = u.hadamard(u);
+        ScalarVector u_inv_sq = u_inv.copy().hadamard(u_inv);
+
+        ScalarVector s = ScalarVector.subsetProducts(allInv, u_sq, n, pool);
+
+        return new IPPVer(u_sq.toList(), u_inv_sq.toList(), s, extra != null ? inv.get(logN) : null);
     }
 
     public static InnerProductProof create(Transcript transcript, ECPoint Q, List<Scalar> G_fact, List<Scalar> H_fact, List<ECPoint> G, List<ECPoint> H, List<Scalar> a, List<Scalar> b) {
+        return create(transcript, Q, G_fact, H_fact, G, H, a, b, null);
+    }
+
+    public static InnerProductProof create(Transcript transcript, ECPoint Q, List<Scalar> G_fact, List<Scalar> H_fact, List<ECPoint> G, List<ECPoint> H, List<Scalar> a, List<Scalar> b, ForkJoinPool pool) {
+        return create(transcript, Q, ScalarVector.from(G_fact), ScalarVector.from(H_fact), G, H, ScalarVector.from(a), ScalarVector.from(b), pool);
+    }
+
+    // a and b are folded in place. With a pool, rounds of at least PARALLEL_THRESHOLD elements compute L and R
+    //  concurrently and split the generator folding in chunks, later rounds run sequentially
+    public static InnerProductProof create(Transcript transcript, ECPoint Q, ScalarVector G_fact, ScalarVector H_fact, List<ECPoint> G, List<ECPoint> H, ScalarVector a, ScalarVector b, ForkJoinPool pool) {
         int n = G.size();
         if (n != H.size() || n != a.size() || n != b.size() || n != G_fact.size() || n != H_fact.size()) {
             return null;
@@ -115,35 +142,38 @@ public class InnerProductProof {
         List<ECPoint> L_vec = new ArrayList<>();
         List<ECPoint> R_vec = new ArrayList<>();
 
-        if (n != 1) {
+        // the generator factors only apply to the first round, the folded generators absorb them
+        boolean first = true;
+        while (n != 1) {
             n = n >> 1;
 
-            List<Scalar> a_L = a.subList(0, n);
-            List<Scalar> a_R = a.subList(n, a.size());
-            List<Scalar> b_L = b.subList(0, n);
-            List<Scalar> b_R = b.subList(n, b.size());
-            List<ECPoint> G_L = G.subList(0, n);
-            List<ECPoint> G_R = G.subList(n, G.size());
-            List<ECPoint> H_L = H.subList(0, n);
-            List<ECPoint> H_R = H.subList(n, H.size());
-
-            Scalar c_L = Utils.innerProduct(a_L, b_R);
-            Scalar c_R = Utils.innerProduct(a_R, b_L);
-
-            List<Scalar> za_L = new ArrayList<>();
-            List<Scalar> za_R = new ArrayList<>();
-            List<Scalar> zb_L = new ArrayList<>();
-            List<Scalar> zb_R = new ArrayList<>();
-            for (int i = 0; i < n; i++) {
-                za_L.add(a_L.get(i).multiply(G_fact.get(n + i)));
-                za_R.add(a_R.get(i).multiply(G_fact.get(i)));
-                zb_L.add(b_L.get(i).multiply(H_fact.get(n + i)));
-                zb_R.add(b_R.get(i).multiply(H_fact.get(i)));
+            int half = n;
+            ForkJoinPool roundPool = pool != null && half >= PARALLEL_THRESHOLD ? pool : null;
+            ScalarVector gf = first ? G_fact : null;
+            ScalarVector hf = first ? H_fact : null;
+
+            List<ECPoint> G_L = G.subList(0, half);
+            List<ECPoint> G_R = G.subList(half, G.size());
+            List<ECPoint> H_L = H.subList(0, half);
+            List<ECPoint> H_R = H.subList(half, H.size());
+
+            Scalar c_L = a.innerProduct(0, b, half, half);
+            Scalar c_R = a.innerProduct(half, b, 0, half);
+
+            Callable<ECPoint> lJob = () -> Utils.multiscalarMul(c_L, scaled(a, 0, half, gf, half), scaled(b, half, 2 * half, hf, 0), Q, G_R, H_L, pool).compress();
+            Callable<ECPoint> rJob = () -> Utils.multiscalarMul(c_R, scaled(a, half, 2 * half, gf, 0), scaled(b, 0, half, hf, half), Q, G_L, H_R, pool).compress();
+
+            ECPoint L;
+            ECPoint R;
+            if (roundPool != null) {
+                ForkJoinTask<ECPoint> lTask = roundPool.submit(lJob);
+                R = call(rJob);
+                L = lTask.join();
+            } else {
+                L = call(lJob);
+                R = call(rJob);
             }
 
-            ECPoint L = Utils.multiscalarMul(c_L, za_L, zb_R, Q, G_R, H_L).compress();
-            ECPoint R = Utils.multiscalarMul(c_R, za_R, zb_L, Q, G_L, H_R).compress();
-
             L_vec.add(L);
             R_vec.add(R);
 
@@ -153,60 +183,59 @@ public class InnerProductProof {
             Scalar u = transcript.challengeScalar("u");
             Scalar u_inv = u.invert();
 
-            for (int i = 0; i < n; i++) {
-                a_L.set(i, a_L.get(i).multiply(u).add(u_inv.multiply(a_R.get(i))));
-                b_L.set(i, b_L.get(i).multiply(u_inv).add(u.multiply(b_R.get(i))));
-                G_L.set(i, BulletProofs.getFactory().mulOptimized(u_inv.multiply(G_fact.get(i)), u.multiply(G_fact.get(n + i)), G_L.get(i), G_R.get(i)));
-                H_L.set(i, BulletProofs.getFactory().mulOptimized(u.multiply(H_fact.get(i)), u_inv.multiply(H_fact.get(n + i)), H_L.get(i), H_R.get(i)));
-            }
-
-            a = a_L;
-            b = b_L;
-            G = G_L;
-            H = H_L;
-        }
-
-        while (n != 1) {
-            n = n >> 1;
+            a.fold(u, u_inv, roundPool);
+            b.fold(u_inv, u, roundPool);
 
-            List<Scalar> a_L = a.subList(0, n);
-            List<Scalar> a_R = a.subList(n, a.size());
-            List<Scalar> b_L = b.subList(0, n);
-            List<Scalar> b_R = b.subList(n,b.size());
-            List<ECPoint> G_L = G.subList(0, n);
-            List<ECPoint> G_R = G.subList(n, G.size());
-            List<ECPoint> H_L = H.subList(0, n);
-            List<ECPoint> H_R = H.subList(n, H.size());
+            if (first) {
+                List<Scalar> g_L = G_fact.copy(0, half).mul(u_inv).toList();
+                List<Scalar> g_R = G_fact.copy(half, 2 * half).mul(u).toList();
+                List<Scalar> h_L = H_fact.copy(0, half).mul(u).toList();
+                List<Scalar> h_R = H_fact.copy(half, 2 * half).mul(u_inv).toList();
 
-            Scalar c_L = Utils.innerProduct(a_L, b_R);
-            Scalar c_R = Utils.innerProduct(a_R, b_L);
-
-            ECPoint L = Utils.multiscalarMul(c_L, a_L, b_R, Q, G_R, H_L).compress();
-            ECPoint R = Utils.multiscalarMul(c_R, a_R, b_L, Q, G_L, H_R).compress();
+                G = fold(G, half, g_L::get, g_R::get, roundPool);
+                H = fold(H, half, h_L::get, h_R::get, roundPool);
+            } else {
+                G = fold(G, half, i -> u_inv, i -> u, roundPool);
+                H = fold(H, half, i -> u, i -> u_inv, roundPool);
+            }
 
-            L_vec.add(L);
-            R_vec.add(R);
+            first = false;
+        }
 
-            transcript.append("L", L);
-            transcript.append("R", R);
+        return new InnerProductProof(L_vec, R_vec, a.get(0), b.get(0));
+    }
 
-            Scalar u = transcript.challengeScalar("u");
-            Scalar u_inv = u.invert();
+    // v[from, to), multiplied by factors[offset + i] when given
+    private static List<Scalar> scaled(ScalarVector v, int from, int to, ScalarVector factors, int offset) {
+        return factors != null ? v.copy(from, to).hadamard(factors, offset).toList() : v.toList(from, to);
+    }
 
-            for (int i = 0; i < n; i++) {
-                a_L.set(i, a_L.get(i).multiply(u).add(u_inv.multiply(a_R.get(i))));
-                b_L.set(i, b_L.get(i).multiply(u_inv).add(u.multiply(b_R.get(i))));
-                G_L.set(i, BulletProofs.getFactory().mulOptimized(u_inv, u, G_L.get(i), G_R.get(i)));
-                H_L.set(i, BulletProofs.getFactory().mulOptimized(u, u_inv, H_L.get(i), H_R.get(i)));
-            }
+    // P'[i] = left(i) * P[i] + right(i) * P[half + i], into a new list so the (possibly shared) input stays intact
+    private static List<ECPoint> fold(List<ECPoint> P, int half, IntFunction<Scalar> left, IntFunction<Scalar> right, ForkJoinPool pool) {
+        ECPoint[] result = new ECPoint[half];
+        if (pool != null) {
+            int chunks = (half + PARALLEL_CHUNK - 1) / PARALLEL_CHUNK;
+            pool.submit(() -> IntStream.range(0, chunks).parallel().forEach(c -> foldRange(P, half, left, right, result, c * PARALLEL_CHUNK, Math.min(half, (c + 1) * PARALLEL_CHUNK)))).join();
+        } else {
+            foldRange(P, half, left, right, result, 0, half);
+        }
+        return Arrays.asList(result);
+    }
 
-            a = a_L;
-            b = b_L;
-            G = G_L;
-            H = H_L;
+    private static void foldRange(List<ECPoint> P, int half, IntFunction<Scalar> left, IntFunction<Scalar> right, ECPoint[] result, int from, int to) {
+        for (int i = from; i < to; i++) {
+            result[i] = BulletProofs.getFactory().mulOptimized(left.apply(i), right.apply(i), P.get(i), P.get(half + i));
         }
+    }
 
-        return new InnerProductProof(L_vec, R_vec, a.get(0), b.get(0));
+    private static ECPoint call(Callable<ECPoint> job) {
+        try {
+            return job.call();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
     }
 
     @Getter
@@ -217,6 +246,8 @@ public class InnerProductProof {
 
         private final List<Scalar> u_inv_sq;
 
-        private final List<Scalar> s;
+        private final ScalarVector s;
+
+        private final Scalar extra_inv;
     }
 }
@@ -1,42 +1,80 @@
 package com.weavechain.zk.bulletproofs;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.weavechain.ec.ECPoint;
+import com.weavechain.ec.ECPointFactory;
+import com.weavechain.ec.FixedBaseTable;
 import com.weavechain.ec.Scalar;
-import lombok.AllArgsConstructor;
 import lombok.Getter;
 import org.bitcoinj.base.Base58;
 
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
 
-@Getter
-@AllArgsConstructor
 public class PedersenCommitment {
 
+    public static final int REGISTRY_SIZE = 256;
+
+    // commitment keys by encoding, so that hashing to the curve and building the tables happens once per key
+    private static final Cache<String, PedersenCommitment> registry = Caffeine.newBuilder()
+            .maximumSize(REGISTRY_SIZE)
+            .build();
+
+    private static volatile PedersenCommitment defaultCommitment;
+
+    @Getter
     private final ECPoint b;
 
+    @Getter
     private final ECPoint blinding;
 
+    private volatile FixedBaseTable bTable;
+
+    private volatile FixedBaseTable blindingTable;
+
+    // backend the points were created with, cached keys from another backend are rebuilt after BulletProofs.setFactory
+    private final ECPointFactory factory;
+
+    public PedersenCommitment(ECPoint b, ECPoint blinding) {
+        this.b = b;
+        this.blinding = blinding;
+        this.factory = BulletProofs.getFactory();
+    }
+
     public static PedersenCommitment from(String encoding) throws NoSuchAlgorithmException {
-        MessageDigest md = MessageDigest.getInstance("SHA3-512");
-        md.update(Base58.decode(encoding));
-        byte[] digest = md.digest();
+        PedersenCommitment result = registry.getIfPresent(encoding);
+        if (result == null || result.factory != BulletProofs.getFactory()) {
+            MessageDigest md = MessageDigest.getInstance("SHA3-512");
+            md.update(Base58.decode(encoding));
+            byte[] digest = md.digest();
 
-        return new PedersenCommitment(
-                BulletProofs.getFactory().basepoint(),
-                BulletProofs.getFactory().fromUniformBytes(digest)
-        );
+            result = new PedersenCommitment(
+                    BulletProofs.getFactory().basepoint(),
+                    BulletProofs.getFactory().fromUniformBytes(digest)
+            );
+
+            result = registry.asMap().merge(encoding, result, (existing, built) -> existing.factory == built.factory ? existing : built);
+        }
+        return result;
     }
 
     public static PedersenCommitment getDefault() throws NoSuchAlgorithmException {
-        MessageDigest md = MessageDigest.getInstance("SHA3-512");
-        md.update(BulletProofs.getFactory().basepoint().compress().toByteArray());
-        byte[] digest = md.digest();
+        PedersenCommitment result = defaultCommitment;
+        if (result == null || result.factory != BulletProofs.getFactory()) {
+            MessageDigest md = MessageDigest.getInstance("SHA3-512");
+            md.update(BulletProofs.getFactory().basepoint().compress().toByteArray());
+            byte[] digest = md.digest();
 
-        return new PedersenCommitment(
-                BulletProofs.getFactory().basepoint(),
-                BulletProofs.getFactory().fromUniformBytes(digest)
-        );
+            result = new PedersenCommitment(
+                    BulletProofs.getFactory().basepoint(),
+                    BulletProofs.getFactory().fromUniformBytes(digest)
+            );
+            defaultCommitment = result;
+        }
+        return result;
     }
 
     public static PedersenCommitment getRandom() throws NoSuchAlgorithmException {
@@ -53,7 +91,42 @@ public class PedersenCommitment {
         );
     }
 
+    public FixedBaseTable getBTable() {
+        FixedBaseTable table = bTable;
+        if (table == null) {
+            table = factory.fixedBaseTable(b);
+            bTable = table;
+        }
+        return table;
+    }
+
+    public FixedBaseTable getBlindingTable() {
+        FixedBaseTable table = blindingTable;
+        if (table == null) {
+            table = factory.fixedBaseTable(blinding);
+            blindingTable = table;
+        }
+        return table;
+    }
+
     public ECPoint commit(Scalar value, Scalar blinding) {
-        return b.multiply(value).add(this.blinding.multiply(blinding)).compress();
+        return getBTable().multiply(value).add(getBlindingTable().multiply(blinding)).compress();
+    }
+
+    public List<ECPoint> commitAll(List<Scalar> values, List<Scalar> blindings) {
+        if (values.size() != blindings.size()) {
+            throw new IllegalArgumentException("Values and blindings size mismatch " + values.size() + " != " + blindings.size());
+        }
+
+        FixedBaseTable bt = getBTable();
+        FixedBaseTable blt = getBlindingTable();
+
+        // commits to v / 2 and r / 2, doubling them back lets the backend share one inversion across the batch encoding
+        Scalar half = factory.one().add(factory.one()).invert();
+        List<ECPoint> points = new ArrayList<>(values.size());
+        for (int i = 0; i < values.size(); i++) {
+            points.add(bt.multiply(values.get(i).multiply(half)).add(blt.multiply(blindings.get(i).multiply(half))));
+        }
+        return factory.doubleAndCompressAll(points);
     }
 }
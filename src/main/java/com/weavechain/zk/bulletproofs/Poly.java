@@ -1,6 +1,7 @@
 package com.weavechain.zk.bulletproofs;
 
 import com.weavechain.ec.Scalar;
+import com.weavechain.ec.ScalarAccumulator;
 import lombok.NoArgsConstructor;
 
 import java.util.ArrayList;
@@ -25,14 +26,14 @@ public class Poly {
     }
 
     public Scalar at(Scalar x) {
-        Scalar res = coefficients.get(0);
+        ScalarAccumulator res = BulletProofs.getFactory().accumulator().addInPlace(coefficients.get(0));
 
         Scalar cp = BulletProofs.getFactory().one();
         for (int i = 1; i < coefficients.size(); i++) {
             cp = cp.multiply(x);
-            res = coefficients.get(i).multiplyAndAdd(cp, res);
+            res.mulAddInPlace(coefficients.get(i), cp);
         }
 
-        return res;
+        return res.get();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,24 @@
+package com.weavechain.zk.bulletproofs;
+
+import com.weavechain.ec.Scalar;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.msgpack.core.MessageBufferPacker;
+import org.msgpack.core.MessageUnpacker;
+
+import java.io.IOException;
+
+@Getter
+@AllArgsConstructor
+public class PolyChallenge {
+
+    private final Scalar x;
+
+    public void pack(MessageBufferPacker packer) throws IOException {
+        packer.writePayload(x.toByteArray());
+    }
+
+    public static PolyChallenge unpack(MessageUnpacker unpacker) throws IOException {
+        return new PolyChallenge(BulletProofs.getFactory().fromBits(unpacker.readPayload(32)));
+    }
+}
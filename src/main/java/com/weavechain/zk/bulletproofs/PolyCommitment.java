@@ -0,0 +1,30 @@
+package com.weavechain.zk.bulletproofs;
+
+import com.weavechain.ec.ECPoint;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.msgpack.core.MessageBufferPacker;
+import org.msgpack.core.MessageUnpacker;
+
+import java.io.IOException;
+
+// Commitments to the t_1 and t_2 coefficients of a party's share of t(x)
+@Getter
+@AllArgsConstructor
+public class PolyCommitment {
+
+    private final ECPoint T1;
+
+    private final ECPoint T2;
+
+    public void pack(MessageBufferPacker packer) throws IOException {
+        packer.writePayload(T1.toByteArray());
+        packer.writePayload(T2.toByteArray());
+    }
+
+    public static PolyCommitment unpack(MessageUnpacker unpacker) throws IOException {
+        ECPoint T1 = BulletProofs.getFactory().fromCompressed(unpacker.readPayload(32));
+        ECPoint T2 = BulletProofs.getFactory().fromCompressed(unpacker.readPayload(32));
+        return new PolyCommitment(T1, T2);
+    }
+}
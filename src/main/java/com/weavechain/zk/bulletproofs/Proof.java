@@ -8,6 +8,7 @@ import org.msgpack.core.MessagePack;
 import org.msgpack.core.MessageUnpacker;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -15,6 +16,11 @@ import java.util.List;
 @AllArgsConstructor
 public class Proof {
 
+    // legacy proofs start with the number of commitments, compact ones with this negative marker followed by the version
+    public static final int COMPACT_MARKER = -1;
+
+    public static final int COMPACT_VERSION = 1;
+
     private final R1CSProof proof;
 
     private final List<ECPoint> commitments;
@@ -27,17 +33,46 @@ public class Proof {
     public static Proof deserialize(byte[] data) throws IOException {
         MessageUnpacker unpacker = MessagePack.newDefaultUnpacker(data);
         int len = unpacker.unpackInt();
+        boolean compact = len == COMPACT_MARKER;
+        if (compact) {
+            int version = unpacker.unpackInt();
+            if (version != COMPACT_VERSION) {
+                throw new IOException("Unsupported proof version " + version);
+            }
+            len = unpacker.unpackInt();
+        }
+        if (len < 0) {
+            throw new IOException("Invalid number of commitments " + len);
+        }
 
         List<ECPoint> commitments = new ArrayList<>();
         for (int i = 0; i < len; i++) {
             commitments.add(BulletProofs.getFactory().fromCompressed(unpacker.readPayload(32)));
         }
-        R1CSProof proof = R1CSProof.unpack(unpacker);
+        R1CSProof proof = compact ? R1CSProof.unpackCompact(unpacker) : R1CSProof.unpack(unpacker);
         unpacker.close();
 
         return new Proof(proof, commitments);
     }
 
+    // compact encoding, single phase proofs leave out the identity second phase commitments.
+    //  Readers before the compact format cannot decode it, serialize() keeps writing the original one
+    public byte[] serializeCompact() throws IOException {
+        MessageBufferPacker packer = MessagePack.newDefaultBufferPacker();
+        packer.packInt(COMPACT_MARKER);
+        packer.packInt(COMPACT_VERSION);
+        packer.packInt(commitments.size());
+
+        for (ECPoint p : commitments) {
+            packer.writePayload(p.toByteArray());
+        }
+        proof.packCompact(packer);
+        packer.close();
+
+        return packer.toMessageBuffer().toByteArray();
+    }
+
+    // the original encoding, readable by every version
     public byte[] serialize() throws IOException {
         MessageBufferPacker packer = MessagePack.newDefaultBufferPacker();
         packer.packInt(commitments.size());
@@ -51,4 +86,12 @@ public class Proof {
         return packer.toMessageBuffer().toByteArray();
     }
 
+    // fixed layout encoding, see ProofView
+    public void write(ByteBuffer out) {
+        ProofView.write(this, out);
+    }
+
+    public static Proof read(ByteBuffer buffer) {
+        return ProofView.wrap(buffer).toProof();
+    }
 }
@@ -0,0 +1,62 @@
+package com.weavechain.zk.bulletproofs;
+
+import com.weavechain.ec.Scalar;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.msgpack.core.MessageBufferPacker;
+import org.msgpack.core.MessageUnpacker;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+// A party's evaluations at the challenge point x, the dealer sums the scalars and concatenates the vectors
+@Getter
+@AllArgsConstructor
+public class ProofShare {
+
+    private final Scalar tx;
+
+    private final Scalar txBlinding;
+
+    private final Scalar eBlinding;
+
+    private final List<Scalar> lVec;
+
+    private final List<Scalar> rVec;
+
+    public void pack(MessageBufferPacker packer) throws IOException {
+        packer.writePayload(tx.toByteArray());
+        packer.writePayload(txBlinding.toByteArray());
+        packer.writePayload(eBlinding.toByteArray());
+
+        packer.packInt(lVec.size());
+        for (Scalar s : lVec) {
+            packer.writePayload(s.toByteArray());
+        }
+        packer.packInt(rVec.size());
+        for (Scalar s : rVec) {
+            packer.writePayload(s.toByteArray());
+        }
+    }
+
+    public static ProofShare unpack(MessageUnpacker unpacker) throws IOException {
+        Scalar tx = BulletProofs.getFactory().fromBits(unpacker.readPayload(32));
+        Scalar txBlinding = BulletProofs.getFactory().fromBits(unpacker.readPayload(32));
+        Scalar eBlinding = BulletProofs.getFactory().fromBits(unpacker.readPayload(32));
+
+        List<Scalar> lVec = new ArrayList<>();
+        int llen = unpacker.unpackInt();
+        for (int i = 0; i < llen; i++) {
+            lVec.add(BulletProofs.getFactory().fromBits(unpacker.readPayload(32)));
+        }
+
+        List<Scalar> rVec = new ArrayList<>();
+        int rlen = unpacker.unpackInt();
+        for (int i = 0; i < rlen; i++) {
+            rVec.add(BulletProofs.getFactory().fromBits(unpacker.readPayload(32)));
+        }
+
+        return new ProofShare(tx, txBlinding, eBlinding, lVec, rVec);
+    }
+}
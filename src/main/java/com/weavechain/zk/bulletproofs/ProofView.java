@@ -0,0 +1,257 @@
+package com.weavechain.zk.bulletproofs;
+
+import com.weavechain.ec.ECPoint;
+import com.weavechain.ec.Scalar;
+import lombok.Getter;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+// Fixed layout binary encoding of a Proof, read in place from a heap, direct or mapped ByteBuffer:
+//  magic (4) | version (1) | ipp rounds k (1) | reserved (2) | commitments m (4)
+//  | m commitments | A_I1 A_O1 S1 A_I2 A_O2 S2 T1 T3 T4 T5 T6 | t_x t_x_blinding e_blinding ipp_a ipp_b | k L | k R
+// Points and scalars are 32 bytes, integers little endian. Every field is at a fixed offset once m and k are known,
+//  fields are only decoded when accessed and points are decoded at most once.
+public class ProofView {
+
+    public static final int MAGIC = 0x31504257; // "WBP1"
+
+    public static final int VERSION = 1;
+
+    public static final int HEADER_SIZE = 12;
+
+    public static final int ELEMENT_SIZE = 32;
+
+    static final int POINTS = 11;
+
+    static final int SCALARS = 5;
+
+    static final int MAX_ROUNDS = 32;
+
+    private final ByteBuffer buffer;
+
+    // offset of the first encoded byte in buffer
+    private final int base;
+
+    @Getter
+    private final int commitmentCount;
+
+    @Getter
+    private final int rounds;
+
+    private final ECPoint[] points;
+
+    private ProofView(ByteBuffer buffer, int base, int commitmentCount, int rounds) {
+        this.buffer = buffer;
+        this.base = base;
+        this.commitmentCount = commitmentCount;
+        this.rounds = rounds;
+        this.points = new ECPoint[commitmentCount + POINTS + 2 * rounds];
+    }
+
+    // the view covers the bytes from the buffer position, which is left unchanged, the buffer must not be modified while in use
+    public static ProofView wrap(ByteBuffer buffer) {
+        int base = buffer.position();
+        if (buffer.limit() - base < HEADER_SIZE) {
+            throw new IllegalArgumentException("Truncated proof header");
+        }
+        if (getInt(buffer, base) != MAGIC) {
+            throw new IllegalArgumentException("Invalid proof magic");
+        }
+        int version = buffer.get(base + 4) & 0xFF;
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported proof version " + version);
+        }
+        int rounds = buffer.get(base + 5) & 0xFF;
+        int commitmentCount = getInt(buffer, base + 8);
+        if (rounds >= MAX_ROUNDS || commitmentCount < 0 || (long)size(commitmentCount, rounds) > buffer.limit() - base) {
+            throw new IllegalArgumentException("Truncated proof");
+        }
+
+        return new ProofView(buffer, base, commitmentCount, rounds);
+    }
+
+    public static long size(int commitmentCount, int rounds) {
+        return HEADER_SIZE + (long)ELEMENT_SIZE * (commitmentCount + POINTS + SCALARS + 2L * rounds);
+    }
+
+    public static int size(Proof proof) {
+        return (int)size(proof.getCommitments().size(), proof.getProof().getIppProof().getL().size());
+    }
+
+    // writes at the buffer position, advancing it, without intermediate arrays beyond the point encodings
+    public static void write(Proof proof, ByteBuffer out) {
+        R1CSProof r1cs = proof.getProof();
+        InnerProductProof ipp = r1cs.getIppProof();
+        int rounds = ipp.getL().size();
+        if (rounds >= MAX_ROUNDS || ipp.getR().size() != rounds) {
+            throw new IllegalArgumentException("Invalid inner product proof size " + rounds);
+        }
+        if (out.remaining() < size(proof)) {
+            throw new BufferOverflowException();
+        }
+
+        putInt(out, MAGIC);
+        out.put((byte)VERSION);
+        out.put((byte)rounds);
+        out.put((byte)0);
+        out.put((byte)0);
+        putInt(out, proof.getCommitments().size());
+
+        for (ECPoint p : proof.getCommitments()) {
+            out.put(p.toByteArray());
+        }
+        out.put(r1cs.getA_I1().toByteArray());
+        out.put(r1cs.getA_O1().toByteArray());
+        out.put(r1cs.getS1().toByteArray());
+        out.put(r1cs.getA_I2().toByteArray());
+        out.put(r1cs.getA_O2().toByteArray());
+        out.put(r1cs.getS2().toByteArray());
+        out.put(r1cs.getT1().toByteArray());
+        out.put(r1cs.getT3().toByteArray());
+        out.put(r1cs.getT4().toByteArray());
+        out.put(r1cs.getT5().toByteArray());
+        out.put(r1cs.getT6().toByteArray());
+        out.put(r1cs.getTx().toByteArray());
+        out.put(r1cs.getTxBlinding().toByteArray());
+        out.put(r1cs.getEBlinding().toByteArray());
+        out.put(ipp.getA().toByteArray());
+        out.put(ipp.getB().toByteArray());
+        for (ECPoint p : ipp.getL()) {
+            out.put(p.toByteArray());
+        }
+        for (ECPoint p : ipp.getR()) {
+            out.put(p.toByteArray());
+        }
+    }
+
+    public static byte[] toByteArray(Proof proof) {
+        ByteBuffer out = ByteBuffer.allocate(size(proof));
+        write(proof, out);
+        return out.array();
+    }
+
+    public int size() {
+        return (int)size(commitmentCount, rounds);
+    }
+
+    public ECPoint getCommitment(int i) {
+        if (i < 0 || i >= commitmentCount) {
+            throw new IndexOutOfBoundsException("Invalid commitment " + i);
+        }
+        return point(i);
+    }
+
+    public List<ECPoint> getCommitments() {
+        return new PointList(0, commitmentCount);
+    }
+
+    // index in A_I1, A_O1, S1, A_I2, A_O2, S2, T1, T3, T4, T5, T6
+    public ECPoint getPoint(int i) {
+        if (i < 0 || i >= POINTS) {
+            throw new IndexOutOfBoundsException("Invalid point " + i);
+        }
+        return point(commitmentCount + i);
+    }
+
+    // index in t_x, t_x_blinding, e_blinding, ipp a, ipp b
+    public Scalar getScalar(int i) {
+        if (i < 0 || i >= SCALARS) {
+            throw new IndexOutOfBoundsException("Invalid scalar " + i);
+        }
+        return BulletProofs.getFactory().fromBits(read(commitmentCount + POINTS + i));
+    }
+
+    public List<ECPoint> getL() {
+        return new PointList(commitmentCount + POINTS, rounds);
+    }
+
+    public List<ECPoint> getR() {
+        return new PointList(commitmentCount + POINTS + rounds, rounds);
+    }
+
+    // commitments and L/R stay views over the buffer, decoded when the verifier first touches them
+    public Proof toProof() {
+        InnerProductProof ippProof = new InnerProductProof(getL(), getR(), getScalar(3), getScalar(4));
+        R1CSProof proof = new R1CSProof(
+                getPoint(0),
+                getPoint(1),
+                getPoint(2),
+                getPoint(3),
+                getPoint(4),
+                getPoint(5),
+                getPoint(6),
+                getPoint(7),
+                getPoint(8),
+                getPoint(9),
+                getPoint(10),
+                getScalar(0),
+                getScalar(1),
+                getScalar(2),
+                ippProof
+        );
+        return new Proof(proof, getCommitments());
+    }
+
+    // slot counts 32 byte elements after the header, points come before the scalars except for L and R
+    private ECPoint point(int idx) {
+        ECPoint result = points[idx];
+        if (result == null) {
+            int slot = idx < commitmentCount + POINTS ? idx : idx + SCALARS;
+            result = BulletProofs.getFactory().fromCompressed(read(slot));
+            points[idx] = result;
+        }
+        return result;
+    }
+
+    private byte[] read(int slot) {
+        int offset = base + HEADER_SIZE + slot * ELEMENT_SIZE;
+        byte[] data = new byte[ELEMENT_SIZE];
+        for (int i = 0; i < ELEMENT_SIZE; i++) {
+            data[i] = buffer.get(offset + i);
+        }
+        return data;
+    }
+
+    private static int getInt(ByteBuffer buffer, int offset) {
+        return (buffer.get(offset) & 0xFF)
+                | (buffer.get(offset + 1) & 0xFF) << 8
+                | (buffer.get(offset + 2) & 0xFF) << 16
+                | (buffer.get(offset + 3) & 0xFF) << 24;
+    }
+
+    private static void putInt(ByteBuffer out, int value) {
+        out.put((byte)value);
+        out.put((byte)(value >>> 8));
+        out.put((byte)(value >>> 16));
+        out.put((byte)(value >>> 24));
+    }
+
+    private class PointList extends AbstractList<ECPoint> implements RandomAccess {
+
+        private final int offset;
+
+        private final int size;
+
+        PointList(int offset, int size) {
+            this.offset = offset;
+            this.size = size;
+        }
+
+        @Override
+        public ECPoint get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Invalid index " + index);
+            }
+            return point(offset + index);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
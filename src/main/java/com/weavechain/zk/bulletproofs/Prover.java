@@ -2,15 +2,24 @@ package com.weavechain.zk.bulletproofs;
 
 import com.weavechain.ec.ECPoint;
 import com.weavechain.ec.Scalar;
-import lombok.AllArgsConstructor;
+import com.weavechain.ec.ScalarAccumulator;
+import com.weavechain.ec.ScalarVector;
+import lombok.Getter;
+import lombok.Setter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.math.BigInteger;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 public class Prover extends ConstraintSystem {
 
@@ -32,32 +41,83 @@ public class Prover extends ConstraintSystem {
 
     private final List<Scalar> blindings = new ArrayList<>();
 
-    private final List<Consumer<Prover>> deferredConstraints = new ArrayList<>();
+    private final List<ECPoint> commitments = new ArrayList<>();
+
+    private final List<Consumer<RandomizedConstraintSystem>> deferredConstraints = new ArrayList<>();
+
+    // transcript state before the first commitment, the one templates recorded from this start from
+    private Transcript initialTranscript;
+
+    // precompiled weights of a template prover, which only takes witness assignments
+    private final ConstraintMatrices matrices;
+
+    private final int multipliers;
+
+    // when set, large multiscalar multiplications are split across this pool
+    @Getter
+    @Setter
+    private ForkJoinPool pool;
 
     public Prover(Transcript transcript, PedersenCommitment pedersenCommitment) {
         this.transcript = transcript;
         this.pedersenCommitment = pedersenCommitment;
+        this.matrices = null;
+        this.multipliers = 0;
+    }
+
+    Prover(Transcript transcript, PedersenCommitment pedersenCommitment, CircuitTemplate template) {
+        this.transcript = transcript;
+        this.pedersenCommitment = pedersenCommitment;
+        this.matrices = template.getMatrices();
+        this.multipliers = template.getMultipliers();
     }
 
     public Commitment commit(Scalar value, Scalar blinding) {
         int size = values.size();
+        snapshotTranscript();
 
         values.add(value);
         blindings.add(blinding);
 
         ECPoint commitment = pedersenCommitment.commit(value, blinding);
+        this.commitments.add(commitment);
         transcript.append("V", commitment);
 
         return new Commitment(commitment, new Variable(VariableType.committed, BigInteger.valueOf(size)));
     }
 
+    public List<Commitment> commitAll(List<Scalar> values, List<Scalar> blindings) {
+        List<ECPoint> commitments = pedersenCommitment.commitAll(values, blindings);
+
+        snapshotTranscript();
+        List<Commitment> result = new ArrayList<>(commitments.size());
+        for (int i = 0; i < commitments.size(); i++) {
+            int size = this.values.size();
+
+            this.values.add(values.get(i));
+            this.blindings.add(blindings.get(i));
+            this.commitments.add(commitments.get(i));
+            transcript.append("V", commitments.get(i));
+
+            result.add(new Commitment(commitments.get(i), new Variable(VariableType.committed, BigInteger.valueOf(size))));
+        }
+        return result;
+    }
+
+    // the commitments to the values, in the order of their variables
+    public List<ECPoint> getCommitments() {
+        return Collections.unmodifiableList(commitments);
+    }
+
     @Override
     public void constrain(LinearCombination lc) {
+        checkMutable();
         constraints.add(lc);
     }
 
     @Override
     public LRO allocateMultiplier(Scalar left, Scalar right) {
+        checkMutable();
         if (left != null && right != null) {
             Variable l = Variable.multiplierLeft(leftGates.size());
             Variable r = Variable.multiplierRight(rightGates.size());
@@ -73,87 +133,130 @@ public class Prover extends ConstraintSystem {
         }
     }
 
+    // The callback runs when proving/verifying, after the first phase commitments, and can draw challenges bound to them.
+    //  Its multipliers are committed in the second phase
+    public void specifyRandomizedConstraints(Consumer<RandomizedConstraintSystem> callback) {
+        checkMutable();
+        deferredConstraints.add(callback);
+    }
+
     private void randomizedConstraints() {
         if (deferredConstraints.isEmpty()) {
             transcript.phase1();
         } else {
             transcript.phase2();
 
-            for (Consumer<Prover> fn : deferredConstraints) {
-                fn.accept(this);
+            RandomizedConstraintSystem cs = new RandomizedConstraintSystem(this, transcript);
+            for (Consumer<RandomizedConstraintSystem> fn : deferredConstraints) {
+                fn.accept(cs);
             }
         }
     }
 
     public VecPoly flattenedConstraints(Scalar z) {
-        int n = leftGates.size();
-        int m = values.size();
-
-        List<Scalar> wL = new ArrayList<>(Collections.nCopies(n, BulletProofs.getFactory().zero()));
-        List<Scalar> wR = new ArrayList<>(Collections.nCopies(n, BulletProofs.getFactory().zero()));
-        List<Scalar> wO = new ArrayList<>(Collections.nCopies(n, BulletProofs.getFactory().zero()));
-        List<Scalar> wV = new ArrayList<>(Collections.nCopies(m, BulletProofs.getFactory().zero()));
-
-        Scalar expz = z;
-        for (LinearCombination lc : constraints) {
-            for (Term t : lc.getTerms()) {
-                if (VariableType.multiplier_left.equals(t.getVariable().getType())) {
-                    wL.set(t.getVariable().getIndex(), wL.get(t.getVariable().getIndex()).add(expz.multiply(t.getScalar())));
-                } else if (VariableType.multiplier_right.equals(t.getVariable().getType())) {
-                    wR.set(t.getVariable().getIndex(), wR.get(t.getVariable().getIndex()).add(expz.multiply(t.getScalar())));
-                } else if (VariableType.multiplier_output.equals(t.getVariable().getType())) {
-                    wO.set(t.getVariable().getIndex(), wO.get(t.getVariable().getIndex()).add(expz.multiply(t.getScalar())));
-                } else if (VariableType.committed.equals(t.getVariable().getType())) {
-                    wV.set(t.getVariable().getIndex(), wV.get(t.getVariable().getIndex()).subtract(expz.multiply(t.getScalar())));
-                }
-            }
+        return flattenedConstraints(z, leftGates.size());
+    }
+
+    // gate weights are zero padded up to size
+    private VecPoly flattenedConstraints(Scalar z, int size) {
+        return compile().flatten(z, size, pool);
+    }
+
+    private ConstraintMatrices compile() {
+        return matrices != null ? matrices : ConstraintMatrices.compile(constraints, leftGates.size(), values.size());
+    }
 
-            expz = expz.multiply(z);
+    private void snapshotTranscript() {
+        if (matrices == null && initialTranscript == null) {
+            initialTranscript = transcript.copy();
         }
+    }
 
-        VecPoly result = new VecPoly(null);
-        result.add(wL);
-        result.add(wR);
-        result.add(wO);
-        result.add(wV);
-        return result;
+    CircuitTemplate template() {
+        if (!deferredConstraints.isEmpty()) {
+            throw new IllegalStateException("Randomized constraints cannot be recorded in a template");
+        }
+        return new CircuitTemplate(leftGates.size(), values.size(), compile(), initialTranscript != null ? initialTranscript : transcript.copy());
+    }
+
+    // gate values of a template prover, output defaults to left * right when null
+    public void assign(List<Scalar> left, List<Scalar> right, List<Scalar> output) {
+        if (matrices == null) {
+            throw new IllegalStateException("Only template provers take gate assignments");
+        }
+        if (left.size() != multipliers || right.size() != multipliers || (output != null && output.size() != multipliers)) {
+            throw new IllegalArgumentException("Gate assignments size mismatch, expected " + multipliers);
+        }
+
+        leftGates.clear();
+        rightGates.clear();
+        outputGates.clear();
+
+        leftGates.addAll(left);
+        rightGates.addAll(right);
+        if (output != null) {
+            outputGates.addAll(output);
+        } else {
+            for (int i = 0; i < multipliers; i++) {
+                outputGates.add(left.get(i).multiply(right.get(i)));
+            }
+        }
+    }
+
+    private void checkMutable() {
+        if (matrices != null) {
+            throw new IllegalStateException("Constraints of a template prover are fixed");
+        }
     }
 
     public R1CSProof prove(BulletProofGenerators generators) {
+        return prove(generators, null);
+    }
+
+    // Independent MSMs, commitments and vector setups run concurrently on the executor, transcript appends and
+    //  randomness draws keep their sequential order so the proof is the same as the one computed sequentially
+    public R1CSProof prove(BulletProofGenerators generators, Executor executor) {
+        if (matrices != null && (leftGates.size() != multipliers || values.size() != matrices.getCommitted())) {
+            throw new IllegalStateException("Template prover needs " + multipliers + " gate assignments and " + matrices.getCommitted() + " commitments");
+        }
+        snapshotTranscript();
+
         transcript.append("m", values.size());
 
-        //TODO: rekey with blindings and use a different RNG, see https://merlin.cool/transcript/rng.html
+        // blinding factors come from a transcript bound generator rekeyed with the witness, seeded once from SecureRandom
+        List<Scalar> witness = new ArrayList<>(blindings);
+        witness.addAll(values);
+        TranscriptRng rng = new TranscriptRng(transcript, witness);
 
         int n1 = leftGates.size();
 
-        if (generators.getCapacity() < n1) {
+        if (!generators.ensureCapacity(n1)) {
             throw new IllegalStateException("Invalid generators length " + generators.getCapacity() + " < " + n1);
         }
 
         BulletProofGenShare gen = generators.getShare(0);
 
-        Scalar i_blinding1 = Utils.randomScalar();
-        Scalar o_blinding1 = Utils.randomScalar();
-        Scalar s_blinding1 = Utils.randomScalar();
+        Scalar i_blinding1 = rng.nextScalar();
+        Scalar o_blinding1 = rng.nextScalar();
+        Scalar s_blinding1 = rng.nextScalar();
 
-        List<Scalar> s_L1 = new ArrayList<>();
-        List<Scalar> s_R1 = new ArrayList<>();
-
-        for (int i = 0; i < n1; i++) {
-            s_L1.add(Utils.randomScalar());
-            s_R1.add(Utils.randomScalar());
-        }
+        List<Scalar> s_L1 = rng.nextScalars(n1, executor);
+        List<Scalar> s_R1 = rng.nextScalars(n1, executor);
 
         // A_I = <a_L, G> + <a_R, H> + i_blinding * B_blinding
-        ECPoint A_I1 = Utils.multiscalarMul(i_blinding1, leftGates, rightGates, pedersenCommitment.getBlinding(), gen.getG(n1), gen.getH(n1)).compress();
-        transcript.append("A_I1", A_I1);
+        CompletableFuture<ECPoint> A_I1_task = async(() -> Utils.multiscalarMul(i_blinding1, leftGates, rightGates, pedersenCommitment.getBlinding(), gen.getG(n1), gen.getH(n1), pool).compress(), executor);
 
         // A_O = <a_O, G> + o_blinding * B_blinding
-        ECPoint A_O1 = Utils.multiscalarMul(o_blinding1, outputGates, pedersenCommitment.getBlinding(), gen.getG(n1)).compress();
-        transcript.append("A_O1", A_O1);
+        CompletableFuture<ECPoint> A_O1_task = async(() -> Utils.multiscalarMul(o_blinding1, outputGates, pedersenCommitment.getBlinding(), gen.getG(n1), pool).compress(), executor);
 
         // S = <s_L, G> + <s_R, H> + s_blinding * B_blinding
-        ECPoint S1 = Utils.multiscalarMul(s_blinding1, s_L1, s_R1, pedersenCommitment.getBlinding(), gen.getG(n1), gen.getH(n1)).compress();
+        CompletableFuture<ECPoint> S1_task = async(() -> Utils.multiscalarMul(s_blinding1, s_L1, s_R1, pedersenCommitment.getBlinding(), gen.getG(n1), gen.getH(n1), pool).compress(), executor);
+
+        ECPoint A_I1 = join(A_I1_task);
+        transcript.append("A_I1", A_I1);
+        ECPoint A_O1 = join(A_O1_task);
+        transcript.append("A_O1", A_O1);
+        ECPoint S1 = join(S1_task);
         transcript.append("S1", S1);
 
         // Process the remaining constraints.
@@ -163,95 +266,101 @@ public class Prover extends ConstraintSystem {
         int n = leftGates.size();
         int n2 = n - n1;
         int nPadded = Utils.nextPowerOf2(n);
-        int pad = nPadded - n;
 
-        if (generators.getCapacity() < nPadded) {
-            throw new IllegalStateException("Invalid generators length");
+        if (!generators.ensureCapacity(nPadded)) {
+            throw new IllegalStateException("Invalid generators length " + generators.getCapacity() + " < " + nPadded);
         }
 
         boolean has2ndPhase = n2 > 0;
-        Scalar i_blinding2 = has2ndPhase ? Utils.randomScalar() : BulletProofs.getFactory().zero();
-        Scalar o_blinding2 = has2ndPhase ? Utils.randomScalar() : BulletProofs.getFactory().zero();
-        Scalar s_blinding2 = has2ndPhase ? Utils.randomScalar() : BulletProofs.getFactory().zero();
-
-        List<Scalar> s_L2 = new ArrayList<>();
-        List<Scalar> s_R2 = new ArrayList<>();
-        for (int i = 0; i < n2; i++) {
-            s_L2.add(Utils.randomScalar());
-            s_R2.add(Utils.randomScalar());
-        }
+        Scalar i_blinding2 = has2ndPhase ? rng.nextScalar() : BulletProofs.getFactory().zero();
+        Scalar o_blinding2 = has2ndPhase ? rng.nextScalar() : BulletProofs.getFactory().zero();
+        Scalar s_blinding2 = has2ndPhase ? rng.nextScalar() : BulletProofs.getFactory().zero();
+
+        List<Scalar> s_L2 = rng.nextScalars(n2, executor);
+        List<Scalar> s_R2 = rng.nextScalars(n2, executor);
 
         // A_I = <a_L, G> + <a_R, H> + i_blinding * B_blinding
-        ECPoint A_I2 = has2ndPhase
-                ? Utils.multiscalarMul(i_blinding2, leftGates.subList(n1, leftGates.size()), rightGates.subList(n1, rightGates.size()), pedersenCommitment.getBlinding(), gen.getG(n).subList(n1, gen.getG(n).size()), gen.getH(n).subList(n1, gen.getH(n).size())).compress()
-                : BulletProofs.getFactory().identity().compress();
-        transcript.append("A_I2", A_I2);
+        CompletableFuture<ECPoint> A_I2_task = async(() -> has2ndPhase
+                ? Utils.multiscalarMul(i_blinding2, leftGates.subList(n1, leftGates.size()), rightGates.subList(n1, rightGates.size()), pedersenCommitment.getBlinding(), gen.getG(n).subList(n1, gen.getG(n).size()), gen.getH(n).subList(n1, gen.getH(n).size()), pool).compress()
+                : BulletProofs.getFactory().identity().compress(), executor);
 
         // A_O = <a_O, G> + o_blinding * B_blinding
-        ECPoint A_O2 = has2ndPhase
-                ? Utils.multiscalarMul(o_blinding2, outputGates.subList(n1, outputGates.size()), pedersenCommitment.getBlinding(), gen.getG(n).subList(n1, gen.getG(n).size())).compress()
-                : BulletProofs.getFactory().identity().compress();
-        transcript.append("A_O2", A_O2);
+        CompletableFuture<ECPoint> A_O2_task = async(() -> has2ndPhase
+                ? Utils.multiscalarMul(o_blinding2, outputGates.subList(n1, outputGates.size()), pedersenCommitment.getBlinding(), gen.getG(n).subList(n1, gen.getG(n).size()), pool).compress()
+                : BulletProofs.getFactory().identity().compress(), executor);
 
         // S = <s_L, G> + <s_R, H> + s_blinding * B_blinding
-        ECPoint S2 = Utils.multiscalarMul(s_blinding2, s_L2, s_R2, pedersenCommitment.getBlinding(), gen.getG(n).subList(n1, gen.getG(n).size()), gen.getH(n).subList(n1, gen.getH(n).size())).compress();
+        CompletableFuture<ECPoint> S2_task = async(() -> Utils.multiscalarMul(s_blinding2, s_L2, s_R2, pedersenCommitment.getBlinding(), gen.getG(n).subList(n1, gen.getG(n).size()), gen.getH(n).subList(n1, gen.getH(n).size()), pool).compress(), executor);
+
+        ECPoint A_I2 = join(A_I2_task);
+        transcript.append("A_I2", A_I2);
+        ECPoint A_O2 = join(A_O2_task);
+        transcript.append("A_O2", A_O2);
+        ECPoint S2 = join(S2_task);
         transcript.append("S2", S2);
 
         Scalar y = transcript.challengeScalar("y");
         Scalar z = transcript.challengeScalar("z");
 
-        VecPoly wp = flattenedConstraints(z);
-        List<Scalar> wL = wp.get(0);
-        List<Scalar> wR = wp.get(1);
-        List<Scalar> wO = wp.get(2);
-        List<Scalar> wV = wp.get(3);
+        VecPoly wp = flattenedConstraints(z, nPadded);
+        ScalarVector wL = wp.get(0);
+        ScalarVector wR = wp.get(1);
+        ScalarVector wO = wp.get(2);
+        ScalarVector wV = wp.get(3);
 
-        VecPoly l_poly = new VecPoly(3, n);
-        VecPoly r_poly = new VecPoly(3, n);
-
-        Scalar exp_y = BulletProofs.getFactory().one();
         Scalar y_inv = y.invert();
 
-        List<Scalar> exp_y_inv = new ArrayList<>();
-        Scalar eyinv = BulletProofs.getFactory().one();
-        for (int i = 0; i < nPadded; i++) {
-            exp_y_inv.add(eyinv);
-            eyinv = eyinv.multiply(y_inv);
+        CompletableFuture<ScalarVector> exp_y_task = async(() -> ScalarVector.powers(y, nPadded), executor);
+        ScalarVector exp_y_inv = ScalarVector.powers(y_inv, nPadded);
+        ScalarVector exp_y = join(exp_y_task);
+
+        List<Scalar> s_L = new ArrayList<>(s_L1);
+        s_L.addAll(s_L2);
+        List<Scalar> s_R = new ArrayList<>(s_R1);
+        s_R.addAll(s_R2);
+
+        // padding lanes are zero except r_0 = -y^i, which is exactly the padded r vector
+        List<CompletableFuture<ScalarVector>> l_tasks = Arrays.asList(
+                async(() -> new ScalarVector(nPadded), executor),
+                async(() -> wR.hadamard(exp_y_inv).add(ScalarVector.from(leftGates, nPadded)), executor),
+                async(() -> ScalarVector.from(outputGates, nPadded), executor),
+                async(() -> ScalarVector.from(s_L, nPadded), executor)
+        );
+        List<CompletableFuture<ScalarVector>> r_tasks = Arrays.asList(
+                async(() -> wO.sub(exp_y), executor),
+                async(() -> ScalarVector.from(rightGates, nPadded).hadamard(exp_y).add(wL), executor),
+                async(() -> new ScalarVector(nPadded), executor),
+                async(() -> ScalarVector.from(s_R, nPadded).hadamard(exp_y), executor)
+        );
+
+        VecPoly l_poly = new VecPoly(null);
+        for (CompletableFuture<ScalarVector> task : l_tasks) {
+            l_poly.add(join(task));
         }
-
-        int idx = 0;
-        for (int i = 0; i < s_L1.size(); i++) {
-            Scalar sl = s_L1.get(i);
-            Scalar sr = s_R1.get(i);
-
-            setPolyTerm(l_poly, r_poly, idx, wL, wR, wO, exp_y, exp_y_inv, sl, sr);
-
-            exp_y = exp_y.multiply(y);
-            idx++;
-        }
-        for (int i = 0; i < s_L2.size(); i++) {
-            Scalar sl = s_L2.get(i);
-            Scalar sr = s_R2.get(i);
-
-            setPolyTerm(l_poly, r_poly, idx, wL, wR, wO, exp_y, exp_y_inv, sl, sr);
-
-            exp_y = exp_y.multiply(y);
-            idx++;
+        VecPoly r_poly = new VecPoly(null);
+        for (CompletableFuture<ScalarVector> task : r_tasks) {
+            r_poly.add(join(task));
         }
 
         Poly t_poly = l_poly.spInnerProduct(r_poly);
 
-        Scalar t_1_blinding = Utils.randomScalar();
-        Scalar t_3_blinding = Utils.randomScalar();
-        Scalar t_4_blinding = Utils.randomScalar();
-        Scalar t_5_blinding = Utils.randomScalar();
-        Scalar t_6_blinding = Utils.randomScalar();
+        Scalar t_1_blinding = rng.nextScalar();
+        Scalar t_3_blinding = rng.nextScalar();
+        Scalar t_4_blinding = rng.nextScalar();
+        Scalar t_5_blinding = rng.nextScalar();
+        Scalar t_6_blinding = rng.nextScalar();
 
-        ECPoint T_1 = pedersenCommitment.commit(t_poly.get(1), t_1_blinding);
-        ECPoint T_3 = pedersenCommitment.commit(t_poly.get(3), t_3_blinding);
-        ECPoint T_4 = pedersenCommitment.commit(t_poly.get(4), t_4_blinding);
-        ECPoint T_5 = pedersenCommitment.commit(t_poly.get(5), t_5_blinding);
-        ECPoint T_6 = pedersenCommitment.commit(t_poly.get(6), t_6_blinding);
+        CompletableFuture<ECPoint> T_1_task = async(() -> pedersenCommitment.commit(t_poly.get(1), t_1_blinding), executor);
+        CompletableFuture<ECPoint> T_3_task = async(() -> pedersenCommitment.commit(t_poly.get(3), t_3_blinding), executor);
+        CompletableFuture<ECPoint> T_4_task = async(() -> pedersenCommitment.commit(t_poly.get(4), t_4_blinding), executor);
+        CompletableFuture<ECPoint> T_5_task = async(() -> pedersenCommitment.commit(t_poly.get(5), t_5_blinding), executor);
+        CompletableFuture<ECPoint> T_6_task = async(() -> pedersenCommitment.commit(t_poly.get(6), t_6_blinding), executor);
+
+        ECPoint T_1 = join(T_1_task);
+        ECPoint T_3 = join(T_3_task);
+        ECPoint T_4 = join(T_4_task);
+        ECPoint T_5 = join(T_5_task);
+        ECPoint T_6 = join(T_6_task);
 
         transcript.append("T_1", T_1);
         transcript.append("T_3", T_3);
@@ -263,29 +372,14 @@ public class Prover extends ConstraintSystem {
         Scalar x = transcript.challengeScalar("x");
 
         // t_2_blinding = <z*z^Q, W_V * v_blinding>
-        Scalar t_2_blinding = BulletProofs.getFactory().zero();
-        for (int i = 0; i < blindings.size(); i++) {
-            t_2_blinding = t_2_blinding.add(wV.get(i).multiply(blindings.get(i)));
-        }
+        Scalar t_2_blinding = wV.innerProduct(ScalarVector.from(blindings));
 
         Poly t_blinding_poly = new Poly(BulletProofs.getFactory().zero(), t_1_blinding, t_2_blinding, t_3_blinding, t_4_blinding, t_5_blinding, t_6_blinding);
 
         Scalar t_x = t_poly.at(x);
         Scalar t_x_blinding = t_blinding_poly.at(x);
-        List<Scalar> l_vec = l_poly.at(x);
-        for (int i = 0; i < pad; i++) {
-            l_vec.add(BulletProofs.getFactory().zero());
-        }
-
-        List<Scalar> r_vec = r_poly.at(x);
-        for (int i = 0; i < pad; i++) {
-            r_vec.add(BulletProofs.getFactory().zero());
-        }
-
-        for (int i = n; i < nPadded; i++) {
-            r_vec.set(i, BulletProofs.getFactory().zero().subtract(exp_y));
-            exp_y = exp_y.multiply(y);
-        }
+        ScalarVector l_vec = l_poly.at(x);
+        ScalarVector r_vec = r_poly.at(x);
 
         Scalar i_blinding = i_blinding1.add(u.multiply(i_blinding2));
         Scalar o_blinding = o_blinding1.add(u.multiply(o_blinding2));
@@ -300,19 +394,10 @@ public class Prover extends ConstraintSystem {
         Scalar w = transcript.challengeScalar("w");
         ECPoint Q = pedersenCommitment.getB().multiply(w);
 
-        List<Scalar> G_factors = new ArrayList<>();
-        List<Scalar> H_factors = new ArrayList<>();
-        for (int i = 0; i < n1; i++) {
-            G_factors.add(BulletProofs.getFactory().one());
-        }
-        for (int i = 0; i < n2 + pad; i++) {
-            G_factors.add(u);
-        }
-        for (int i = 0; i < exp_y_inv.size(); i++) {
-            H_factors.add(exp_y_inv.get(i).multiply(G_factors.get(i)));
-        }
+        ScalarVector G_factors = ScalarVector.filled(BulletProofs.getFactory().one(), nPadded).mul(n1, nPadded, u);
+        ScalarVector H_factors = exp_y_inv.mul(n1, nPadded, u);
 
-        InnerProductProof ipp_proof = InnerProductProof.create(transcript, Q, G_factors, H_factors, gen.getG(nPadded), gen.getH(nPadded), l_vec, r_vec);
+        InnerProductProof ipp_proof = InnerProductProof.create(transcript, Q, G_factors, H_factors, gen.getG(nPadded), gen.getH(nPadded), l_vec, r_vec, pool);
 
         return new R1CSProof(A_I1,
                 A_O1,
@@ -331,38 +416,46 @@ public class Prover extends ConstraintSystem {
                 ipp_proof);
     }
 
-    private void setPolyTerm(VecPoly l_poly, VecPoly r_poly, int idx, List<Scalar> wL, List<Scalar> wR, List<Scalar> wO, Scalar exp_y, List<Scalar> exp_y_inv, Scalar sl, Scalar sr) {
-        l_poly.get(1).set(idx, leftGates.get(idx).add(exp_y_inv.get(idx).multiply(wR.get(idx))));
-        l_poly.get(2).set(idx, outputGates.get(idx));
-        l_poly.get(3).set(idx, sl);
-        r_poly.get(0).set(idx, wO.get(idx).subtract(exp_y));
-        r_poly.get(1).set(idx, exp_y.multiply(rightGates.get(idx)).add(wL.get(idx)));
-        r_poly.get(3).set(idx, exp_y.multiply(sr));
+    // runs inline when there is no executor
+    private static <T> CompletableFuture<T> async(Supplier<T> task, Executor executor) {
+        return executor != null ? CompletableFuture.supplyAsync(task, executor) : CompletableFuture.completedFuture(task.get());
+    }
+
+    private static <T> T join(CompletableFuture<T> task) {
+        try {
+            return task.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException)e.getCause();
+            }
+            throw e;
+        }
     }
 
     public Scalar eval(LinearCombination lc) {
-        Scalar result = BulletProofs.getFactory().zero();
+        ScalarAccumulator result = BulletProofs.getFactory().accumulator();
         for (Term t : lc.getTerms()) {
             if (VariableType.multiplier_left.equals(t.getVariable().getType())) {
-                result = result.add(t.getScalar().multiply(leftGates.get(t.getVariable().getIndex())));
+                result.mulAddInPlace(t.getScalar(), leftGates.get(t.getVariable().getIndex()));
             } else if (VariableType.multiplier_right.equals(t.getVariable().getType())) {
-                result = result.add(t.getScalar().multiply(rightGates.get(t.getVariable().getIndex())));
+                result.mulAddInPlace(t.getScalar(), rightGates.get(t.getVariable().getIndex()));
             } else if (VariableType.multiplier_output.equals(t.getVariable().getType())) {
-                result = result.add(t.getScalar().multiply(outputGates.get(t.getVariable().getIndex())));
+                result.mulAddInPlace(t.getScalar(), outputGates.get(t.getVariable().getIndex()));
             } else if (VariableType.committed.equals(t.getVariable().getType())) {
-                result = result.add(t.getScalar().multiply(values.get(t.getVariable().getIndex())));
+                result.mulAddInPlace(t.getScalar(), values.get(t.getVariable().getIndex()));
             } else if (VariableType.one.equals(t.getVariable().getType())) {
-                result = result.add(t.getScalar());
+                result.addInPlace(t.getScalar());
             } else if (VariableType.one_minus.equals(t.getVariable().getType())) {
-                result = result.subtract(t.getScalar());
+                result.mulAddInPlace(t.getScalar(), BulletProofs.getFactory().minus_one());
             }
         }
 
-        return result;
+        return result.get();
     }
 
     @Override
     public LRO multiply(LinearCombination left, LinearCombination right) {
+        checkMutable();
         Scalar sl = eval(left);
         Scalar sr = eval(right);
         Scalar so = sl.multiply(sr);
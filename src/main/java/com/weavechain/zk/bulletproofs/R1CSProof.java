@@ -8,11 +8,17 @@ import org.msgpack.core.MessageBufferPacker;
 import org.msgpack.core.MessageUnpacker;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 @Getter
 @AllArgsConstructor
 public class R1CSProof {
 
+    // compact encoding flag: the second phase commitments follow, otherwise they are all the identity
+    public static final int FLAG_PHASE2 = 1;
+
     // Commitment to the values of input wires in the first phase.
     private final ECPoint A_I1;
 
@@ -58,6 +64,21 @@ public class R1CSProof {
     /// Proof data for the inner-product argument.
     private final InnerProductProof ippProof;
 
+    // without randomized constraints the prover commits nothing in the second phase
+    public boolean isSinglePhase() {
+        return isIdentity(A_I2) && isIdentity(A_O2) && isIdentity(S2);
+    }
+
+    // the second phase commitments are left out of single phase proofs, they do not contribute to the verification
+    public List<ECPoint> points() {
+        List<ECPoint> result = isSinglePhase()
+                ? new ArrayList<>(Arrays.asList(A_I1, A_O1, S1, T1, T3, T4, T5, T6))
+                : new ArrayList<>(Arrays.asList(A_I1, A_O1, S1, A_I2, A_O2, S2, T1, T3, T4, T5, T6));
+        result.addAll(ippProof.getL());
+        result.addAll(ippProof.getR());
+        return result;
+    }
+
     public void pack(MessageBufferPacker packer) throws IOException {
         packer.writePayload(A_I1.toByteArray());
         packer.writePayload(A_O1.toByteArray());
@@ -76,6 +97,61 @@ public class R1CSProof {
         ippProof.pack(packer);
     }
 
+    // like pack, but the second phase commitments are only written when not all identity
+    public void packCompact(MessageBufferPacker packer) throws IOException {
+        boolean phase2 = !isSinglePhase();
+        packer.packInt(phase2 ? FLAG_PHASE2 : 0);
+        packer.writePayload(A_I1.toByteArray());
+        packer.writePayload(A_O1.toByteArray());
+        packer.writePayload(S1.toByteArray());
+        if (phase2) {
+            packer.writePayload(A_I2.toByteArray());
+            packer.writePayload(A_O2.toByteArray());
+            packer.writePayload(S2.toByteArray());
+        }
+        packer.writePayload(T1.toByteArray());
+        packer.writePayload(T3.toByteArray());
+        packer.writePayload(T4.toByteArray());
+        packer.writePayload(T5.toByteArray());
+        packer.writePayload(T6.toByteArray());
+        packer.writePayload(tx.toByteArray());
+        packer.writePayload(txBlinding.toByteArray());
+        packer.writePayload(eBlinding.toByteArray());
+        ippProof.pack(packer);
+    }
+
+    public static R1CSProof unpackCompact(MessageUnpacker unpacker) throws IOException {
+        int flags = unpacker.unpackInt();
+        boolean phase2 = (flags & FLAG_PHASE2) != 0;
+
+        ECPoint A_I1 = BulletProofs.getFactory().fromCompressed(unpacker.readPayload(32));
+        ECPoint A_O1 = BulletProofs.getFactory().fromCompressed(unpacker.readPayload(32));
+        ECPoint S1 = BulletProofs.getFactory().fromCompressed(unpacker.readPayload(32));
+        ECPoint A_I2 = phase2 ? BulletProofs.getFactory().fromCompressed(unpacker.readPayload(32)) : identity();
+        ECPoint A_O2 = phase2 ? BulletProofs.getFactory().fromCompressed(unpacker.readPayload(32)) : identity();
+        ECPoint S2 = phase2 ? BulletProofs.getFactory().fromCompressed(unpacker.readPayload(32)) : identity();
+        ECPoint T1 = BulletProofs.getFactory().fromCompressed(unpacker.readPayload(32));
+        ECPoint T3 = BulletProofs.getFactory().fromCompressed(unpacker.readPayload(32));
+        ECPoint T4 = BulletProofs.getFactory().fromCompressed(unpacker.readPayload(32));
+        ECPoint T5 = BulletProofs.getFactory().fromCompressed(unpacker.readPayload(32));
+        ECPoint T6 = BulletProofs.getFactory().fromCompressed(unpacker.readPayload(32));
+        Scalar tx = BulletProofs.getFactory().fromBits(unpacker.readPayload(32));
+        Scalar txBlinding = BulletProofs.getFactory().fromBits(unpacker.readPayload(32));
+        Scalar eBlinding = BulletProofs.getFactory().fromBits(unpacker.readPayload(32));
+
+        InnerProductProof ippProof = InnerProductProof.unpack(unpacker);
+
+        return new R1CSProof(A_I1, A_O1, S1, A_I2, A_O2, S2, T1, T3, T4, T5, T6, tx, txBlinding, eBlinding, ippProof);
+    }
+
+    private static ECPoint identity() {
+        return BulletProofs.getFactory().identity().compress();
+    }
+
+    private static boolean isIdentity(ECPoint point) {
+        return Arrays.equals(point.compress().toByteArray(), identity().toByteArray());
+    }
+
     public static R1CSProof unpack(MessageUnpacker unpacker) throws IOException {
         ECPoint A_I1 = BulletProofs.getFactory().fromCompressed(unpacker.readPayload(32));
         ECPoint A_O1 = BulletProofs.getFactory().fromCompressed(unpacker.readPayload(32));
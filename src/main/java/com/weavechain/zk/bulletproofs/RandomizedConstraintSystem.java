@@ -0,0 +1,36 @@
+package com.weavechain.zk.bulletproofs;
+
+import com.weavechain.ec.Scalar;
+
+// Handed to the callbacks of specifyRandomizedConstraints once the first phase variables are committed,
+//  so the constraints can use challenges bound to them (random linear combinations instead of bit decompositions)
+public class RandomizedConstraintSystem extends ConstraintSystem {
+
+    private final ConstraintSystem cs;
+
+    private final Transcript transcript;
+
+    RandomizedConstraintSystem(ConstraintSystem cs, Transcript transcript) {
+        this.cs = cs;
+        this.transcript = transcript;
+    }
+
+    @Override
+    public void constrain(LinearCombination lc) {
+        cs.constrain(lc);
+    }
+
+    @Override
+    public LRO multiply(LinearCombination l, LinearCombination r) {
+        return cs.multiply(l, r);
+    }
+
+    @Override
+    public LRO allocateMultiplier(Scalar left, Scalar right) {
+        return cs.allocateMultiplier(left, right);
+    }
+
+    public Scalar challengeScalar(String label) {
+        return transcript.challengeScalar(label);
+    }
+}
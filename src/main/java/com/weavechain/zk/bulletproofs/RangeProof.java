@@ -0,0 +1,364 @@
+package com.weavechain.zk.bulletproofs;
+
+import com.weavechain.ec.ECPoint;
+import com.weavechain.ec.Scalar;
+import com.weavechain.ec.ScalarVector;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.msgpack.core.MessageBufferPacker;
+import org.msgpack.core.MessagePack;
+import org.msgpack.core.MessageUnpacker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+// Aggregated range proof that m committed values are in [0, 2^n), without going through a constraint system.
+//  Follows the Bulletproofs paper (sections 4.3 and 4.5), value j uses the generators of party j, see RangeProofDealer
+@Getter
+@AllArgsConstructor
+public class RangeProof {
+
+    static final Logger logger = LoggerFactory.getLogger(RangeProof.class);
+
+    public static final int MAX_BITS = 64;
+
+    // Commitment to the bits of the values
+    private final ECPoint A;
+
+    // Commitment to the blinding factors
+    private final ECPoint S;
+
+    // Commitment to the t_1 coefficient of t(x)
+    private final ECPoint T1;
+
+    // Commitment to the t_2 coefficient of t(x)
+    private final ECPoint T2;
+
+    // Evaluation of the polynomial t(x) at the challenge point x
+    private final Scalar tx;
+
+    // Blinding factor for the synthetic commitment to t(x)
+    private final Scalar txBlinding;
+
+    // Blinding factor for the synthetic commitment to the inner-product arguments
+    private final Scalar eBlinding;
+
+    // Proof data for the inner-product argument.
+    private final InnerProductProof ippProof;
+
+    // Commitments to the values
+    private final List<ECPoint> commitments;
+
+    public ECPoint getCommitment(int i) {
+        return commitments.get(i);
+    }
+
+    public static RangeProof prove(List<Long> values, List<Scalar> blindings, int bits, PedersenCommitment pedersenCommitment, BulletProofGenerators generators) {
+        return prove(newTranscript(), values, blindings, bits, pedersenCommitment, generators, null);
+    }
+
+    // runs the dealer and one party per value locally
+    public static RangeProof prove(Transcript transcript, List<Long> values, List<Scalar> blindings, int bits, PedersenCommitment pedersenCommitment, BulletProofGenerators generators, ForkJoinPool pool) {
+        int m = values.size();
+        if (blindings.size() != m) {
+            throw new IllegalArgumentException("Values and blindings size mismatch " + m + " != " + blindings.size());
+        }
+
+        RangeProofDealer dealer = new RangeProofDealer(transcript, bits, m, pedersenCommitment, generators);
+        dealer.setPool(pool);
+
+        List<RangeProofParty> parties = new ArrayList<>(m);
+        List<BitCommitment> bitCommitments = new ArrayList<>(m);
+        for (int j = 0; j < m; j++) {
+            RangeProofParty party = new RangeProofParty(values.get(j), blindings.get(j), bits, pedersenCommitment, generators);
+            party.setPool(pool);
+            parties.add(party);
+            bitCommitments.add(party.assignPosition(j));
+        }
+
+        BitChallenge bitChallenge = dealer.receiveBitCommitments(bitCommitments);
+
+        List<PolyCommitment> polyCommitments = new ArrayList<>(m);
+        for (RangeProofParty party : parties) {
+            polyCommitments.add(party.applyBitChallenge(bitChallenge));
+        }
+
+        PolyChallenge polyChallenge = dealer.receivePolyCommitments(polyCommitments);
+
+        List<ProofShare> shares = new ArrayList<>(m);
+        for (RangeProofParty party : parties) {
+            shares.add(party.applyPolyChallenge(polyChallenge));
+        }
+
+        return dealer.receiveTrustedShares(shares);
+    }
+
+    public boolean verify(int bits, PedersenCommitment pedersenCommitment, BulletProofGenerators generators) {
+        return verify(newTranscript(), bits, pedersenCommitment, generators, null);
+    }
+
+    public boolean verify(Transcript transcript, int bits, PedersenCommitment pedersenCommitment, BulletProofGenerators generators, ForkJoinPool pool) {
+        Verifier.Check check = check(transcript, bits, pedersenCommitment, generators, pool);
+        if (check == null) {
+            return false;
+        }
+
+        try {
+            return BulletProofs.getFactory().identity().equals(check.evaluate(pool));
+        } catch (Exception e) {
+            logger.error("Failed check", e);
+            return false;
+        }
+    }
+
+    // all proofs are for the same number of bits, see BatchVerifier
+    public static boolean batchVerify(List<RangeProof> proofs, int bits, PedersenCommitment pedersenCommitment, BulletProofGenerators generators, ForkJoinPool pool) {
+        List<Verifier.Check> checks = new ArrayList<>();
+        for (RangeProof proof : proofs) {
+            Verifier.Check check = proof.check(newTranscript(), bits, pedersenCommitment, generators, pool);
+            if (check == null) {
+                return false;
+            }
+            checks.add(check);
+        }
+
+        return checks.isEmpty() || BatchVerifier.verify(checks, pedersenCommitment, pool);
+    }
+
+    Verifier.Check check(Transcript transcript, int bits, PedersenCommitment pedersenCommitment, BulletProofGenerators generators, ForkJoinPool pool) {
+        int m = commitments.size();
+        try {
+            checkShape(bits, m, generators);
+            checkTranscript(transcript);
+        } catch (IllegalArgumentException e) {
+            logger.error("Invalid range proof check", e);
+            return null;
+        }
+
+        int nm = bits * m;
+
+        // decode every point once, the transcript checks and the final MSM reuse the memoized results
+        List<ECPoint> encoded = new ArrayList<>(commitments);
+        encoded.addAll(points());
+        if (BulletProofs.getFactory().decompressAll(encoded, pool).contains(null)) {
+            return null;
+        }
+
+        domainSeparator(transcript, bits, m);
+        for (ECPoint V : commitments) {
+            transcript.append("V", V);
+        }
+
+        if (!transcript.validateAndAppend("A", A)) {
+            return null;
+        }
+        if (!transcript.validateAndAppend("S", S)) {
+            return null;
+        }
+
+        Scalar y = transcript.challengeScalar("y");
+        Scalar z = transcript.challengeScalar("z");
+
+        if (!transcript.validateAndAppend("T_1", T1)) {
+            return null;
+        }
+        if (!transcript.validateAndAppend("T_2", T2)) {
+            return null;
+        }
+
+        Scalar x = transcript.challengeScalar("x");
+
+        transcript.append("t_x", tx);
+        transcript.append("t_x_blinding", txBlinding);
+        transcript.append("e_blinding", eBlinding);
+
+        Scalar w = transcript.challengeScalar("w");
+
+        // y is inverted together with the inner product challenges
+        InnerProductProof.IPPVer ippVer = ippProof.scalarsVer(nm, transcript, y, pool);
+        if (ippVer == null) {
+            return null;
+        }
+
+        transcript.rnd();
+
+        // weight of the t(x) check against the inner product check
+        Scalar c = Utils.randomScalar();
+
+        Scalar zero = BulletProofs.getFactory().zero();
+        Scalar a = ippProof.getA();
+        Scalar b = ippProof.getB();
+        Scalar zz = z.multiply(z);
+        Scalar minusZ = zero.subtract(z);
+
+        // g = -z - a * s, h = z + y^-i * (z^(2+j) * 2^i - b * s^-1)
+        List<Scalar> g_scalars = ScalarVector.filled(minusZ, nm).mulAdd(ippVer.getS(), zero.subtract(a)).toList();
+        List<Scalar> h_scalars = zAndTwos(z, bits, m).mulAdd(ippVer.getS().reversed(), zero.subtract(b))
+                .hadamard(ScalarVector.powers(ippVer.getExtra_inv(), nm))
+                .add(z)
+                .toList();
+
+        // delta(y, z) = (z - z^2) * <1, y^nm> - sum(z^(3+j)) * <1, 2^n>
+        Scalar sumTwos = Utils.scalar(BigInteger.ONE.shiftLeft(bits).subtract(BigInteger.ONE));
+        Scalar sumZ = ScalarVector.powers(z, 3, m).innerProduct(ScalarVector.filled(BulletProofs.getFactory().one(), m));
+        Scalar delta = z.subtract(zz).multiply(sumOfPowers(y, nm)).subtract(sumZ.multiply(sumTwos));
+
+        try {
+            List<Scalar> scalars = new ArrayList<>();
+            scalars.add(BulletProofs.getFactory().one()); // A
+            scalars.add(x); // S
+            scalars.addAll(ScalarVector.powers(z, 2, m).mul(c).toList()); // V
+            scalars.add(c.multiply(x)); // T_1
+            scalars.add(c.multiply(x).multiply(x)); // T_2
+            scalars.addAll(ippVer.getU_sq());
+            scalars.addAll(ippVer.getU_inv_sq());
+
+            List<ECPoint> points = new ArrayList<>();
+            points.add(A.decompress());
+            points.add(S.decompress());
+            for (ECPoint V : commitments) {
+                points.add(V.decompress());
+            }
+            points.add(T1.decompress());
+            points.add(T2.decompress());
+            for (ECPoint p : ippProof.getL()) {
+                points.add(p.decompress());
+            }
+            for (ECPoint p : ippProof.getR()) {
+                points.add(p.decompress());
+            }
+            if (points.contains(null)) {
+                return null;
+            }
+
+            Scalar bScalar = w.multiply(tx.subtract(a.multiply(b))).add(c.multiply(delta.subtract(tx)));
+            Scalar blindingScalar = zero.subtract(eBlinding).subtract(c.multiply(txBlinding));
+
+            return new Verifier.Check(scalars, points, bScalar, blindingScalar, g_scalars, h_scalars, pedersenCommitment, generators.getAggregatedG(bits, m), generators.getAggregatedH(bits, m));
+        } catch (Exception e) {
+            logger.error("Failed check", e);
+            return null;
+        }
+    }
+
+    public List<ECPoint> points() {
+        List<ECPoint> result = new ArrayList<>(Arrays.asList(A, S, T1, T2));
+        result.addAll(ippProof.getL());
+        result.addAll(ippProof.getR());
+        return result;
+    }
+
+    // v1 challenges ignore their label and absorb nothing, so y and z would be equal and the
+    //  bit constraints collapse into a single polynomial the prover can cancel for any value
+    public static Transcript newTranscript() {
+        return new Transcript(TranscriptVersion.v2);
+    }
+
+    static void checkTranscript(Transcript transcript) {
+        if (!TranscriptVersion.v2.equals(transcript.getVersion())) {
+            throw new IllegalArgumentException("Range proofs need a " + TranscriptVersion.v2 + " transcript, got " + transcript.getVersion());
+        }
+    }
+
+    static void domainSeparator(Transcript transcript, int bits, int m) {
+        transcript.append("dom-sep", "rangeproof");
+        transcript.append("n", bits);
+        transcript.append("m", m);
+    }
+
+    static void checkShape(int bits, int m, BulletProofGenerators generators) {
+        if (bits < 1 || bits > MAX_BITS || Integer.bitCount(bits) != 1) {
+            throw new IllegalArgumentException("Invalid bitsize " + bits);
+        }
+        if (m < 1 || Integer.bitCount(m) != 1) {
+            throw new IllegalArgumentException("Invalid number of values " + m);
+        }
+        if (generators.getParties() < m) {
+            throw new IllegalArgumentException("Invalid generators parties " + generators.getParties() + " < " + m);
+        }
+        if (!generators.ensureCapacity(bits)) {
+            throw new IllegalArgumentException("Invalid generators length " + generators.getCapacity() + " < " + bits);
+        }
+    }
+
+    // z^(2+j) * 2^i at index j * n + i
+    private static ScalarVector zAndTwos(Scalar z, int bits, int m) {
+        ScalarVector twos = ScalarVector.powers(Utils.scalar(2), bits);
+        List<Scalar> exp_z = ScalarVector.powers(z, 2, m).toList();
+        ScalarVector result = new ScalarVector(bits * m);
+        for (int j = 0; j < m; j++) {
+            result.put(j * bits, twos.copy().mul(exp_z.get(j)));
+        }
+        return result;
+    }
+
+    // 1 + x + ... + x^(n-1), n a power of 2
+    private static Scalar sumOfPowers(Scalar x, int n) {
+        Scalar result = BulletProofs.getFactory().one();
+        Scalar factor = x;
+        for (int k = 1; k < n; k <<= 1) {
+            result = result.add(factor.multiply(result));
+            factor = factor.multiply(factor);
+        }
+        return result;
+    }
+
+    public void pack(MessageBufferPacker packer) throws IOException {
+        packer.writePayload(A.toByteArray());
+        packer.writePayload(S.toByteArray());
+        packer.writePayload(T1.toByteArray());
+        packer.writePayload(T2.toByteArray());
+        packer.writePayload(tx.toByteArray());
+        packer.writePayload(txBlinding.toByteArray());
+        packer.writePayload(eBlinding.toByteArray());
+        ippProof.pack(packer);
+    }
+
+    public static RangeProof unpack(MessageUnpacker unpacker, List<ECPoint> commitments) throws IOException {
+        ECPoint A = BulletProofs.getFactory().fromCompressed(unpacker.readPayload(32));
+        ECPoint S = BulletProofs.getFactory().fromCompressed(unpacker.readPayload(32));
+        ECPoint T1 = BulletProofs.getFactory().fromCompressed(unpacker.readPayload(32));
+        ECPoint T2 = BulletProofs.getFactory().fromCompressed(unpacker.readPayload(32));
+        Scalar tx = BulletProofs.getFactory().fromBits(unpacker.readPayload(32));
+        Scalar txBlinding = BulletProofs.getFactory().fromBits(unpacker.readPayload(32));
+        Scalar eBlinding = BulletProofs.getFactory().fromBits(unpacker.readPayload(32));
+
+        InnerProductProof ippProof = InnerProductProof.unpack(unpacker);
+
+        return new RangeProof(A, S, T1, T2, tx, txBlinding, eBlinding, ippProof, commitments);
+    }
+
+    public static RangeProof deserialize(byte[] data) throws IOException {
+        MessageUnpacker unpacker = MessagePack.newDefaultUnpacker(data);
+        int len = unpacker.unpackInt();
+
+        List<ECPoint> commitments = new ArrayList<>();
+        for (int i = 0; i < len; i++) {
+            commitments.add(BulletProofs.getFactory().fromCompressed(unpacker.readPayload(32)));
+        }
+        RangeProof proof = unpack(unpacker, Collections.unmodifiableList(commitments));
+        unpacker.close();
+
+        return proof;
+    }
+
+    public byte[] serialize() throws IOException {
+        MessageBufferPacker packer = MessagePack.newDefaultBufferPacker();
+        packer.packInt(commitments.size());
+
+        for (ECPoint p : commitments) {
+            packer.writePayload(p.toByteArray());
+        }
+        pack(packer);
+        packer.close();
+
+        return packer.toMessageBuffer().toByteArray();
+    }
+}
@@ -0,0 +1,261 @@
+package com.weavechain.zk.bulletproofs;
+
+import com.weavechain.ec.ECPoint;
+import com.weavechain.ec.Scalar;
+import com.weavechain.ec.ScalarVector;
+import lombok.Getter;
+import lombok.Setter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+// Combines the messages of m RangeProofParty instances (party j at position j) into one aggregated RangeProof.
+//  The dealer owns the transcript and draws the challenges, the parties never see each other's secrets.
+//  The transcript must be a v2 one, see RangeProof.newTranscript
+public class RangeProofDealer {
+
+    static final Logger logger = LoggerFactory.getLogger(RangeProofDealer.class);
+
+    private final Transcript transcript;
+
+    // the transcript state a verifier starts from, to check the combined proof
+    private final Transcript initialTranscript;
+
+    private final int bits;
+
+    private final int m;
+
+    private final PedersenCommitment pedersenCommitment;
+
+    private final BulletProofGenerators generators;
+
+    // when set, the inner product argument and the final check are split across this pool
+    @Getter
+    @Setter
+    private ForkJoinPool pool;
+
+    private List<BitCommitment> bitCommitments;
+
+    private BitChallenge bitChallenge;
+
+    private List<PolyCommitment> polyCommitments;
+
+    private PolyChallenge polyChallenge;
+
+    private boolean sharesReceived;
+
+    // sums of the party commitments
+    private ECPoint A;
+
+    private ECPoint S;
+
+    private ECPoint T1;
+
+    private ECPoint T2;
+
+    public RangeProofDealer(Transcript transcript, int bits, int m, PedersenCommitment pedersenCommitment, BulletProofGenerators generators) {
+        RangeProof.checkShape(bits, m, generators);
+        RangeProof.checkTranscript(transcript);
+
+        this.transcript = transcript;
+        this.initialTranscript = transcript.copy();
+        this.bits = bits;
+        this.m = m;
+        this.pedersenCommitment = pedersenCommitment;
+        this.generators = generators;
+
+        RangeProof.domainSeparator(transcript, bits, m);
+    }
+
+    public BitChallenge receiveBitCommitments(List<BitCommitment> commitments) {
+        if (bitCommitments != null) {
+            throw new IllegalStateException("Bit commitments already received");
+        }
+        checkCount(commitments.size());
+
+        ECPoint sumA = BulletProofs.getFactory().identity();
+        ECPoint sumS = BulletProofs.getFactory().identity();
+        for (int j = 0; j < m; j++) {
+            BitCommitment c = commitments.get(j);
+            transcript.append("V", c.getV());
+            sumA = sumA.add(decompress(c.getA(), j));
+            sumS = sumS.add(decompress(c.getS(), j));
+        }
+        A = sumA.compress();
+        S = sumS.compress();
+        bitCommitments = commitments;
+
+        transcript.append("A", A);
+        transcript.append("S", S);
+
+        Scalar y = transcript.challengeScalar("y");
+        Scalar z = transcript.challengeScalar("z");
+
+        bitChallenge = new BitChallenge(y, z);
+        return bitChallenge;
+    }
+
+    public PolyChallenge receivePolyCommitments(List<PolyCommitment> commitments) {
+        if (bitChallenge == null || polyCommitments != null) {
+            throw new IllegalStateException("Poly commitments out of order");
+        }
+        checkCount(commitments.size());
+
+        ECPoint sumT1 = BulletProofs.getFactory().identity();
+        ECPoint sumT2 = BulletProofs.getFactory().identity();
+        for (int j = 0; j < m; j++) {
+            PolyCommitment c = commitments.get(j);
+            sumT1 = sumT1.add(decompress(c.getT1(), j));
+            sumT2 = sumT2.add(decompress(c.getT2(), j));
+        }
+        T1 = sumT1.compress();
+        T2 = sumT2.compress();
+        polyCommitments = commitments;
+
+        transcript.append("T_1", T1);
+        transcript.append("T_2", T2);
+
+        Scalar x = transcript.challengeScalar("x");
+
+        polyChallenge = new PolyChallenge(x);
+        return polyChallenge;
+    }
+
+    // the combined proof is verified, on failure every share is audited to report the offending party
+    public RangeProof receiveShares(List<ProofShare> shares) {
+        RangeProof proof = receiveTrustedShares(shares);
+        if (!proof.verify(initialTranscript.copy(), bits, pedersenCommitment, generators, pool)) {
+            for (int j = 0; j < shares.size(); j++) {
+                if (!auditShare(j, shares.get(j))) {
+                    throw new IllegalArgumentException("Invalid proof share from party " + j);
+                }
+            }
+            throw new IllegalArgumentException("Invalid aggregated proof");
+        }
+        return proof;
+    }
+
+    // shares of parties run locally do not need the extra verification
+    public RangeProof receiveTrustedShares(List<ProofShare> shares) {
+        if (polyChallenge == null || sharesReceived) {
+            throw new IllegalStateException("Proof shares out of order");
+        }
+        sharesReceived = true;
+        checkCount(shares.size());
+
+        int nm = bits * m;
+        Scalar zero = BulletProofs.getFactory().zero();
+        Scalar t_x = zero;
+        Scalar t_x_blinding = zero;
+        Scalar e_blinding = zero;
+        ScalarVector l_vec = new ScalarVector(nm);
+        ScalarVector r_vec = new ScalarVector(nm);
+        for (int j = 0; j < m; j++) {
+            ProofShare share = shares.get(j);
+            if (share.getLVec().size() != bits || share.getRVec().size() != bits) {
+                throw new IllegalArgumentException("Invalid proof share size from party " + j);
+            }
+
+            t_x = t_x.add(share.getTx());
+            t_x_blinding = t_x_blinding.add(share.getTxBlinding());
+            e_blinding = e_blinding.add(share.getEBlinding());
+            l_vec.put(j * bits, ScalarVector.from(share.getLVec()));
+            r_vec.put(j * bits, ScalarVector.from(share.getRVec()));
+        }
+
+        transcript.append("t_x", t_x);
+        transcript.append("t_x_blinding", t_x_blinding);
+        transcript.append("e_blinding", e_blinding);
+
+        Scalar w = transcript.challengeScalar("w");
+        ECPoint Q = pedersenCommitment.getB().multiply(w);
+
+        ScalarVector G_factors = ScalarVector.filled(BulletProofs.getFactory().one(), nm);
+        ScalarVector H_factors = ScalarVector.powers(bitChallenge.getY().invert(), nm);
+
+        InnerProductProof ipp_proof = InnerProductProof.create(transcript, Q, G_factors, H_factors, generators.getAggregatedG(bits, m), generators.getAggregatedH(bits, m), l_vec, r_vec, pool);
+
+        List<ECPoint> commitments = new ArrayList<>(m);
+        for (BitCommitment c : bitCommitments) {
+            commitments.add(c.getV());
+        }
+
+        return new RangeProof(A, S, T1, T2, t_x, t_x_blinding, e_blinding, ipp_proof, commitments);
+    }
+
+    // checks the share of party j against its own commitments: <l, r> = t_x, A_j + x S_j - e_blinding B_blinding + <-z - l, G_j> + <z - y^-(jn+i) (r - z^(2+j) 2^i), H_j> = 0
+    //  and z^(2+j) V_j + x T_1j + x^2 T_2j = (t_x - delta_j) B + t_x_blinding B_blinding
+    boolean auditShare(int j, ProofShare share) {
+        if (share.getLVec().size() != bits || share.getRVec().size() != bits) {
+            return false;
+        }
+
+        try {
+            Scalar zero = BulletProofs.getFactory().zero();
+            Scalar y = bitChallenge.getY();
+            Scalar z = bitChallenge.getZ();
+            Scalar x = polyChallenge.getX();
+            BitCommitment bc = bitCommitments.get(j);
+            PolyCommitment pc = polyCommitments.get(j);
+
+            ScalarVector l = ScalarVector.from(share.getLVec());
+            ScalarVector r = ScalarVector.from(share.getRVec());
+            if (!l.innerProduct(r).equals(share.getTx())) {
+                return false;
+            }
+
+            Scalar zz_j = ScalarVector.powers(z, 2 + j, 1).get(0);
+            ScalarVector twos = ScalarVector.powers(Utils.scalar(2), bits);
+
+            List<Scalar> g = l.negate().add(zero.subtract(z)).toList();
+            List<Scalar> h = r.negate().mulAdd(twos, zz_j).hadamard(ScalarVector.powers(y.invert(), j * bits, bits)).add(z).toList();
+
+            List<Scalar> scalars = new ArrayList<>(Arrays.asList(BulletProofs.getFactory().one(), x, zero.subtract(share.getEBlinding())));
+            scalars.addAll(g);
+            scalars.addAll(h);
+            List<ECPoint> points = new ArrayList<>(Arrays.asList(bc.getA().decompress(), bc.getS().decompress(), pedersenCommitment.getBlinding()));
+            points.addAll(generators.getShare(j).getG(bits));
+            points.addAll(generators.getShare(j).getH(bits));
+            if (points.contains(null)) {
+                return false;
+            }
+            if (!BulletProofs.getFactory().identity().equals(Utils.multiscalarMul(zero, scalars, pedersenCommitment.getB(), points, pool))) {
+                return false;
+            }
+
+            // delta_j = (z - z^2) * <1, y^n> * y^jn - z^(3+j) * <1, 2^n>
+            Scalar sumY = ScalarVector.powers(y, j * bits, bits).innerProduct(ScalarVector.filled(BulletProofs.getFactory().one(), bits));
+            Scalar sumTwos = Utils.scalar(BigInteger.ONE.shiftLeft(bits).subtract(BigInteger.ONE));
+            Scalar delta = z.subtract(z.multiply(z)).multiply(sumY).subtract(zz_j.multiply(z).multiply(sumTwos));
+
+            List<Scalar> tScalars = Arrays.asList(zz_j, x, x.multiply(x), zero.subtract(share.getTxBlinding()));
+            List<ECPoint> tPoints = Arrays.asList(bc.getV().decompress(), pc.getT1().decompress(), pc.getT2().decompress(), pedersenCommitment.getBlinding());
+            if (tPoints.contains(null)) {
+                return false;
+            }
+            return BulletProofs.getFactory().identity().equals(Utils.multiscalarMul(delta.subtract(share.getTx()), tScalars, pedersenCommitment.getB(), tPoints));
+        } catch (Exception e) {
+            logger.error("Failed share audit", e);
+            return false;
+        }
+    }
+
+    private static ECPoint decompress(ECPoint point, int party) {
+        ECPoint result = point.decompress();
+        if (result == null) {
+            throw new IllegalArgumentException("Invalid point from party " + party);
+        }
+        return result;
+    }
+
+    private void checkCount(int count) {
+        if (count != m) {
+            throw new IllegalArgumentException("Invalid number of parties " + count + " != " + m);
+        }
+    }
+}
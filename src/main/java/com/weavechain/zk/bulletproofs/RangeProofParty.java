@@ -0,0 +1,183 @@
+package com.weavechain.zk.bulletproofs;
+
+import com.weavechain.ec.ECPoint;
+import com.weavechain.ec.Scalar;
+import com.weavechain.ec.ScalarVector;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+// One party of an aggregated range proof: proves its own value with the generators of its position,
+//  exchanging messages with a RangeProofDealer. The rounds must be called in order, once.
+public class RangeProofParty {
+
+    private final int bits;
+
+    private final long value;
+
+    private final Scalar blinding;
+
+    private final PedersenCommitment pedersenCommitment;
+
+    private final BulletProofGenerators generators;
+
+    @Getter
+    private final ECPoint commitment;
+
+    // when set, the commitment to the blinding vectors is split across this pool
+    @Getter
+    @Setter
+    private ForkJoinPool pool;
+
+    private TranscriptRng rng;
+
+    private int position = -1;
+
+    private Scalar a_blinding;
+
+    private Scalar s_blinding;
+
+    private ScalarVector aL;
+
+    private ScalarVector aR;
+
+    private ScalarVector s_L;
+
+    private ScalarVector s_R;
+
+    private BitChallenge bitChallenge;
+
+    private Scalar t_1_blinding;
+
+    private Scalar t_2_blinding;
+
+    private VecPoly l_poly;
+
+    private VecPoly r_poly;
+
+    public RangeProofParty(long value, Scalar blinding, int bits, PedersenCommitment pedersenCommitment, BulletProofGenerators generators) {
+        if (bits < 1 || bits > RangeProof.MAX_BITS || Integer.bitCount(bits) != 1) {
+            throw new IllegalArgumentException("Invalid bitsize " + bits);
+        }
+        if (bits < RangeProof.MAX_BITS && (value >>> bits) != 0) {
+            throw new IllegalArgumentException("Value out of range " + Long.toUnsignedString(value) + " >= 2^" + bits);
+        }
+        if (!generators.ensureCapacity(bits)) {
+            throw new IllegalArgumentException("Invalid generators length " + generators.getCapacity() + " < " + bits);
+        }
+
+        this.bits = bits;
+        this.value = value;
+        this.blinding = blinding;
+        this.pedersenCommitment = pedersenCommitment;
+        this.generators = generators;
+        this.commitment = pedersenCommitment.commit(Utils.scalar(value), blinding);
+    }
+
+    public BitCommitment assignPosition(int position) {
+        if (this.position >= 0) {
+            throw new IllegalStateException("Position already assigned");
+        }
+        if (position < 0 || position >= generators.getParties()) {
+            throw new IllegalArgumentException("Invalid position " + position + " for " + generators.getParties() + " parties");
+        }
+        this.position = position;
+
+        // the party blinding randomness is keyed by its own commitment and position, see TranscriptRng
+        Transcript transcript = RangeProof.newTranscript();
+        transcript.append("dom-sep", "rangeproof-party");
+        transcript.append("V", commitment);
+        transcript.append("j", position);
+        rng = new TranscriptRng(transcript, Arrays.asList(Utils.scalar(value), blinding));
+
+        BulletProofGenShare gens = generators.getShare(position);
+        List<ECPoint> G = gens.getG(bits);
+        List<ECPoint> H = gens.getH(bits);
+
+        // a_L are the bits of the value, a_R = a_L - 1, so A only adds or subtracts generators
+        a_blinding = rng.nextScalar();
+        aL = new ScalarVector(bits);
+        aR = new ScalarVector(bits);
+        ECPoint A = pedersenCommitment.getBlindingTable().multiply(a_blinding);
+        for (int i = 0; i < bits; i++) {
+            if (((value >>> i) & 1) != 0) {
+                aL.set(i, BulletProofs.getFactory().one());
+                A = A.add(G.get(i));
+            } else {
+                aR.set(i, BulletProofs.getFactory().minus_one());
+                A = A.subtract(H.get(i));
+            }
+        }
+
+        s_blinding = rng.nextScalar();
+        List<Scalar> sl = rng.nextScalars(bits);
+        List<Scalar> sr = rng.nextScalars(bits);
+        s_L = ScalarVector.from(sl);
+        s_R = ScalarVector.from(sr);
+        ECPoint S = Utils.multiscalarMul(s_blinding, sl, sr, pedersenCommitment.getBlinding(), G, H, pool);
+
+        return new BitCommitment(commitment, A.compress(), S.compress());
+    }
+
+    public PolyCommitment applyBitChallenge(BitChallenge challenge) {
+        if (position < 0 || bitChallenge != null) {
+            throw new IllegalStateException("Bit challenge out of order");
+        }
+        bitChallenge = challenge;
+
+        Scalar y = challenge.getY();
+        Scalar z = challenge.getZ();
+
+        // l(x) = a_L - z + s_L * x, r(x) = y^(jn+i) * (a_R + z + s_R * x) + z^(2+j) * 2^i
+        ScalarVector exp_y = ScalarVector.powers(y, position * bits, bits);
+        Scalar zz_j = ScalarVector.powers(z, 2 + position, 1).get(0);
+
+        l_poly = new VecPoly(BulletProofs.getFactory().zero());
+        l_poly.add(aL.add(BulletProofs.getFactory().zero().subtract(z)));
+        l_poly.add(s_L);
+
+        r_poly = new VecPoly(BulletProofs.getFactory().zero());
+        r_poly.add(aR.add(z).hadamard(exp_y).add(ScalarVector.powers(Utils.scalar(2), bits).mul(zz_j)));
+        r_poly.add(s_R.hadamard(exp_y));
+
+        Scalar t1 = l_poly.get(0).innerProduct(r_poly.get(1)).add(l_poly.get(1).innerProduct(r_poly.get(0)));
+        Scalar t2 = l_poly.get(1).innerProduct(r_poly.get(1));
+
+        t_1_blinding = rng.nextScalar();
+        t_2_blinding = rng.nextScalar();
+
+        return new PolyCommitment(pedersenCommitment.commit(t1, t_1_blinding), pedersenCommitment.commit(t2, t_2_blinding));
+    }
+
+    public ProofShare applyPolyChallenge(PolyChallenge challenge) {
+        if (bitChallenge == null || l_poly == null) {
+            throw new IllegalStateException("Poly challenge out of order");
+        }
+
+        Scalar x = challenge.getX();
+        if (BulletProofs.getFactory().zero().equals(x)) {
+            throw new IllegalArgumentException("Zero poly challenge");
+        }
+
+        Scalar zz_j = ScalarVector.powers(bitChallenge.getZ(), 2 + position, 1).get(0);
+
+        ScalarVector l_vec = l_poly.at(x);
+        ScalarVector r_vec = r_poly.at(x);
+        Scalar t_x = l_vec.innerProduct(r_vec);
+        Scalar t_x_blinding = new Poly(zz_j.multiply(blinding), t_1_blinding, t_2_blinding).at(x);
+        Scalar e_blinding = a_blinding.add(s_blinding.multiply(x));
+
+        // the secrets are not needed anymore, the rounds cannot be replayed
+        l_poly = null;
+        r_poly = null;
+        aL = null;
+        aR = null;
+        s_L = null;
+        s_R = null;
+
+        return new ProofShare(t_x, t_x_blinding, e_blinding, l_vec.toList(), r_vec.toList());
+    }
+}
@@ -2,10 +2,11 @@ package com.weavechain.zk.bulletproofs;
 
 import com.weavechain.ec.ECPoint;
 import com.weavechain.ec.Scalar;
+import lombok.Getter;
+import lombok.Setter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.ByteArrayOutputStream;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
@@ -15,33 +16,59 @@ public class Transcript {
 
     static final Logger logger = LoggerFactory.getLogger(Transcript.class);
 
-    private ByteArrayOutputStream transcript = new ByteArrayOutputStream();
+    @Getter
+    @Setter
+    private static TranscriptVersion defaultVersion = TranscriptVersion.v1;
+
+    @Getter
+    private final TranscriptVersion version;
+
+    // SHA3-512 sponge absorbing the transcript incrementally, challenges squeeze from a clone of it
+    private final MessageDigest state;
+
+    public Transcript() {
+        this(defaultVersion);
+    }
+
+    public Transcript(TranscriptVersion version) {
+        this.version = version;
+        try {
+            this.state = MessageDigest.getInstance("SHA3-512");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA3-512 not available", e);
+        }
+    }
+
+    private Transcript(TranscriptVersion version, MessageDigest state) {
+        this.version = version;
+        this.state = state;
+    }
 
     public void append(String key, String value) {
-        transcript.write('s');
+        state.update((byte)'s');
         writeString(key);
         writeString(value);
     }
 
     public void append(String key, long value) {
-        transcript.write('l');
+        state.update((byte)'l');
         writeString(key);
 
         ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES);
         buffer.putLong(value);
-        transcript.writeBytes(buffer.array());
+        state.update(buffer.array());
     }
 
     public void append(String key, Scalar value) {
-        transcript.write('S');
+        state.update((byte)'S');
         writeString(key);
-        transcript.writeBytes(value.toByteArray());
+        state.update(value.toByteArray());
     }
 
     public void append(String key, ECPoint value) {
-        transcript.write('P');
+        state.update((byte)'P');
         writeString(key);
-        transcript.writeBytes(value.toByteArray());
+        state.update(value.toByteArray());
     }
 
     public void phase1() {
@@ -70,25 +97,39 @@ public class Transcript {
 
     private void writeString(String key) {
         byte[] k = key.getBytes(StandardCharsets.UTF_8);
-        transcript.write(k.length);
-        transcript.writeBytes(k);
+        state.update((byte)k.length);
+        state.update(k);
     }
 
     public void rnd() {
         byte[] randomness = Utils.randomScalar().toByteArray();
-        transcript.write(randomness.length);
-        transcript.writeBytes(randomness);
+        state.update((byte)randomness.length);
+        state.update(randomness);
     }
 
     public Scalar challengeScalar(String key) {
-        try {
-            MessageDigest md = MessageDigest.getInstance("SHA3-512");
-            md.update(transcript.toByteArray());
-            byte[] digest = md.digest();
+        if (TranscriptVersion.v2.equals(version)) {
+            state.update((byte)'c');
+            writeString(key);
+        }
 
-            return BulletProofs.getFactory().fromBytesModOrderWide(digest);
-        } catch (NoSuchAlgorithmException e) {
-            return null;
+        byte[] digest = fork().digest();
+        if (TranscriptVersion.v2.equals(version)) {
+            state.update(digest);
+        }
+
+        return BulletProofs.getFactory().fromBytesModOrderWide(digest);
+    }
+
+    public Transcript copy() {
+        return new Transcript(version, fork());
+    }
+
+    MessageDigest fork() {
+        try {
+            return (MessageDigest)state.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException("Transcript state not cloneable", e);
         }
     }
 }
@@ -0,0 +1,94 @@
+package com.weavechain.zk.bulletproofs;
+
+import com.github.aelstad.keccakj.fips202.Shake256;
+import com.weavechain.ec.Scalar;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+public class TranscriptRng {
+
+    //Similar to https://merlin.cool/transcript/rng.html: the generator is keyed by the public transcript state,
+    //  rekeyed with the prover secrets and finalized with fresh randomness, so a weak RNG alone does not leak witnesses
+
+    public static final String LABEL = "TranscriptRng";
+
+    private static final int SCALAR_BYTES = 64;
+
+    // scalars reduced by a single task when an executor is given
+    public static final int PARALLEL_CHUNK = 512;
+
+    private final InputStream squeeze;
+
+    public TranscriptRng(Transcript transcript, List<Scalar> witness) {
+        try {
+            Shake256 digest = new Shake256();
+            digest.getAbsorbStream().write(LABEL.getBytes(StandardCharsets.UTF_8));
+            digest.getAbsorbStream().write(transcript.fork().digest());
+            for (Scalar s : witness) {
+                digest.getAbsorbStream().write(s.toByteArray());
+            }
+
+            byte[] randomness = new byte[32];
+            Utils.random().nextBytes(randomness);
+            digest.getAbsorbStream().write(randomness);
+
+            squeeze = digest.getSqueezeStream();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public Scalar nextScalar() {
+        return BulletProofs.getFactory().fromBytesModOrderWide(nextBytes(SCALAR_BYTES));
+    }
+
+    public List<Scalar> nextScalars(int count) {
+        return nextScalars(count, null);
+    }
+
+    // the bytes are squeezed sequentially, only their reduction to scalars is split across the executor
+    public List<Scalar> nextScalars(int count, Executor executor) {
+        byte[] data = nextBytes(count * SCALAR_BYTES);
+
+        Scalar[] result = new Scalar[count];
+        if (executor != null && count >= 2 * PARALLEL_CHUNK) {
+            List<CompletableFuture<Void>> tasks = new ArrayList<>();
+            for (int start = 0; start < count; start += PARALLEL_CHUNK) {
+                int from = start;
+                int to = Math.min(count, start + PARALLEL_CHUNK);
+                tasks.add(CompletableFuture.runAsync(() -> reduce(data, result, from, to), executor));
+            }
+            CompletableFuture.allOf(tasks.toArray(new CompletableFuture[0])).join();
+        } else {
+            reduce(data, result, 0, count);
+        }
+        return new ArrayList<>(Arrays.asList(result));
+    }
+
+    private static void reduce(byte[] data, Scalar[] result, int from, int to) {
+        for (int i = from; i < to; i++) {
+            result[i] = BulletProofs.getFactory().fromBytesModOrderWide(Arrays.copyOfRange(data, i * SCALAR_BYTES, (i + 1) * SCALAR_BYTES));
+        }
+    }
+
+    private byte[] nextBytes(int count) {
+        try {
+            byte[] data = new byte[count];
+            int read = 0;
+            while (read < count) {
+                read += squeeze.read(data, read, count - read);
+            }
+            return data;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.weavechain.zk.bulletproofs;
+
+public enum TranscriptVersion {
+
+    // challenges hash the whole transcript, labels are not bound (original format)
+    v1,
+
+    // challenges bind their label and are absorbed back, so consecutive challenges differ
+    v2
+}
@@ -2,6 +2,7 @@ package com.weavechain.zk.bulletproofs;
 
 import com.weavechain.ec.ECPoint;
 import com.weavechain.ec.Scalar;
+import com.weavechain.ec.ScalarAccumulator;
 import com.google.gson.*;
 import org.bitcoinj.base.Base58;
 
@@ -12,6 +13,7 @@ import java.nio.ByteOrder;
 import java.security.SecureRandom;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 public class Utils {
 
@@ -80,17 +82,25 @@ public class Utils {
         return BulletProofs.getFactory().multiscalarMulOpt(s1, s2, null, p1, p2, null);
     }
 
+    public static ECPoint multiscalarMul(Scalar s1, List<Scalar> s2, List<Scalar> s3, ECPoint p1, List<ECPoint> p2, List<ECPoint> p3, ForkJoinPool pool) {
+        return BulletProofs.getFactory().multiscalarMulOpt(s1, s2, s3, p1, p2, p3, pool);
+    }
+
+    public static ECPoint multiscalarMul(Scalar s1, List<Scalar> s2, ECPoint p1, List<ECPoint> p2, ForkJoinPool pool) {
+        return BulletProofs.getFactory().multiscalarMulOpt(s1, s2, null, p1, p2, null, pool);
+    }
+
     public static ECPoint multiscalarMul(Scalar s1, Scalar s2, ECPoint p1, ECPoint p2) {
         return BulletProofs.getFactory().mulOptimized(s1, s2, p1, p2);
     }
 
     public static Scalar innerProduct(List<Scalar> a, List<Scalar> b) {
         if (a.size() == b.size()) {
-            Scalar result = BulletProofs.getFactory().zero();
+            ScalarAccumulator result = BulletProofs.getFactory().accumulator();
             for (int i = 0; i < a.size(); i++) {
-                result = result.add(a.get(i).multiply(b.get(i)));
+                result.mulAddInPlace(a.get(i), b.get(i));
             }
-            return result;
+            return result.get();
         } else {
             return null;
         }
@@ -2,6 +2,10 @@ package com.weavechain.zk.bulletproofs;
 
 import com.weavechain.ec.ECPoint;
 import com.weavechain.ec.Scalar;
+import com.weavechain.ec.ScalarVector;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -10,7 +14,10 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
 
 public class Verifier extends ConstraintSystem {
 
@@ -20,18 +27,37 @@ public class Verifier extends ConstraintSystem {
 
     private final List<LinearCombination> constraints = new ArrayList<>();
 
-    private final List<Consumer<Verifier>> deferredConstraints = new ArrayList<>();
+    private final List<Consumer<RandomizedConstraintSystem>> deferredConstraints = new ArrayList<>();
+
+    // transcript state before the first commitment, the one templates recorded from this start from
+    private Transcript initialTranscript;
 
     private final List<ECPoint> values = new ArrayList<>();
 
     private int numVars = 0;
 
+    // precompiled weights of a template verifier, whose constraints cannot change
+    private final ConstraintMatrices matrices;
+
+    // when set, the verification multiscalar multiplication is split across this pool
+    @Getter
+    @Setter
+    private ForkJoinPool pool;
+
     public Verifier(Transcript transcript) {
         this.transcript = transcript;
+        this.matrices = null;
+    }
+
+    Verifier(Transcript transcript, CircuitTemplate template) {
+        this.transcript = transcript;
+        this.matrices = template.getMatrices();
+        this.numVars = template.getMultipliers();
     }
 
     public Variable commit(ECPoint commitment) {
         int size = values.size();
+        snapshotTranscript();
 
         values.add(commitment);
         transcript.append("V", commitment);
@@ -39,13 +65,20 @@ public class Verifier extends ConstraintSystem {
         return new Variable(VariableType.committed, BigInteger.valueOf(size));
     }
 
+    // the commitments to the values, in the order of their variables
+    public List<ECPoint> getCommitments() {
+        return Collections.unmodifiableList(values);
+    }
+
     @Override
     public void constrain(LinearCombination lc) {
+        checkMutable();
         constraints.add(lc);
     }
 
     @Override
     public LRO allocateMultiplier(Scalar left, Scalar right) {
+        checkMutable();
         Variable l = Variable.multiplierLeft(numVars);
         Variable r = Variable.multiplierRight(numVars);
         Variable o = Variable.multiplierOutput(numVars);
@@ -55,80 +88,110 @@ public class Verifier extends ConstraintSystem {
         return new LRO(l, r, o);
     }
 
+    // The callback runs when proving/verifying, after the first phase commitments, and can draw challenges bound to them.
+    //  Its multipliers are committed in the second phase
+    public void specifyRandomizedConstraints(Consumer<RandomizedConstraintSystem> callback) {
+        checkMutable();
+        deferredConstraints.add(callback);
+    }
+
     private void randomizedConstraints() {
         if (deferredConstraints.isEmpty()) {
             transcript.phase1();
         } else {
             transcript.phase2();
 
-            for (Consumer<Verifier> fn : deferredConstraints) {
-                fn.accept(this);
+            RandomizedConstraintSystem cs = new RandomizedConstraintSystem(this, transcript);
+            for (Consumer<RandomizedConstraintSystem> fn : deferredConstraints) {
+                fn.accept(cs);
             }
         }
     }
 
     public VecPoly flattenedConstraints(Scalar z) {
-        int n = numVars;
-        int m = values.size();
-
-        List<Scalar> wL = new ArrayList<>(Collections.nCopies(n, BulletProofs.factory.zero()));
-        List<Scalar> wR = new ArrayList<>(Collections.nCopies(n, BulletProofs.factory.zero()));
-        List<Scalar> wO = new ArrayList<>(Collections.nCopies(n, BulletProofs.factory.zero()));
-        List<Scalar> wV = new ArrayList<>(Collections.nCopies(m, BulletProofs.factory.zero()));
-        Scalar wc = BulletProofs.factory.zero();
-
-        Scalar expz = z;
-        for (LinearCombination lc : constraints) {
-            for (Term t : lc.getTerms()) {
-                if (VariableType.multiplier_left.equals(t.getVariable().getType())) {
-                    wL.set(t.getVariable().getIndex(), wL.get(t.getVariable().getIndex()).add(expz.multiply(t.getScalar())));
-                } else if (VariableType.multiplier_right.equals(t.getVariable().getType())) {
-                    wR.set(t.getVariable().getIndex(), wR.get(t.getVariable().getIndex()).add(expz.multiply(t.getScalar())));
-                } else if (VariableType.multiplier_output.equals(t.getVariable().getType())) {
-                    wO.set(t.getVariable().getIndex(), wO.get(t.getVariable().getIndex()).add(expz.multiply(t.getScalar())));
-                } else if (VariableType.committed.equals(t.getVariable().getType())) {
-                    wV.set(t.getVariable().getIndex(), wV.get(t.getVariable().getIndex()).subtract(expz.multiply(t.getScalar())));
-                } else if (VariableType.one.equals(t.getVariable().getType())) {
-                    wc = wc.subtract(expz.multiply(t.getScalar()));
-                } else if (VariableType.one_minus.equals(t.getVariable().getType())) {
-                    wc = wc.add(expz.multiply(t.getScalar()));
-                }
-            }
+        return flattenedConstraints(z, numVars);
+    }
+
+    // gate weights are zero padded up to size
+    private VecPoly flattenedConstraints(Scalar z, int size) {
+        return compile().flatten(z, size, pool);
+    }
+
+    private ConstraintMatrices compile() {
+        return matrices != null ? matrices : ConstraintMatrices.compile(constraints, numVars, values.size());
+    }
+
+    private void snapshotTranscript() {
+        if (matrices == null && initialTranscript == null) {
+            initialTranscript = transcript.copy();
+        }
+    }
+
+    boolean hasRandomizedConstraints() {
+        return !deferredConstraints.isEmpty();
+    }
 
-            expz = expz.multiply(z);
+    CircuitTemplate template() {
+        if (!deferredConstraints.isEmpty()) {
+            throw new IllegalStateException("Randomized constraints cannot be recorded in a template");
         }
+        return new CircuitTemplate(numVars, values.size(), compile(), initialTranscript != null ? initialTranscript : transcript.copy());
+    }
 
-        VecPoly result = new VecPoly(wc);
-        result.add(wL);
-        result.add(wR);
-        result.add(wO);
-        result.add(wV);
-        return result;
+    private void checkMutable() {
+        if (matrices != null) {
+            throw new IllegalStateException("Constraints of a template verifier are fixed");
+        }
     }
 
     public boolean verify(Proof proof, PedersenCommitment pedersenCommitment, BulletProofGenerators generators) {
+        Check check = check(proof, pedersenCommitment, generators);
+        if (check == null) {
+            return false;
+        }
+
+        try {
+            return BulletProofs.getFactory().identity().equals(check.evaluate(pool));
+        } catch (Exception e) {
+            logger.error("Failed check", e);
+            return false;
+        }
+    }
+
+    Check check(Proof proof, PedersenCommitment pedersenCommitment, BulletProofGenerators generators) {
+        snapshotTranscript();
+
+        // decode every point once, the transcript checks and the final MSM reuse the memoized results
+        List<ECPoint> encoded = new ArrayList<>(values);
+        encoded.addAll(proof.getProof().points());
+        if (BulletProofs.getFactory().decompressAll(encoded, pool).contains(null)) {
+            return null;
+        }
+
+        if (matrices != null && matrices.getCommitted() != values.size()) {
+            return null;
+        }
+
         transcript.append("m", values.size());
 
         int n1 = numVars;
         if (!transcript.validateAndAppend("A_I1", proof.getProof().getA_I1())) {
-            return false;
+            return null;
         }
         if (!transcript.validateAndAppend("A_O1", proof.getProof().getA_O1())) {
-            return false;
+            return null;
         }
         if (!transcript.validateAndAppend("S1", proof.getProof().getS1())) {
-            return false;
+            return null;
         }
 
         randomizedConstraints();
 
         int n = numVars;
-        int n2 = n - n1;
         int nPadded = Utils.nextPowerOf2(n);
-        int pad = nPadded - n;
 
-        if (generators.getCapacity() < nPadded) {
-            throw new IllegalStateException("Invalid generators length");
+        if (!generators.ensureCapacity(nPadded)) {
+            throw new IllegalStateException("Invalid generators length " + generators.getCapacity() + " < " + nPadded);
         }
 
         BulletProofGenShare gens = generators.getShare(0);
@@ -141,19 +204,19 @@ public class Verifier extends ConstraintSystem {
         Scalar z = transcript.challengeScalar("z");
 
         if (!transcript.validateAndAppend("T_1", proof.getProof().getT1())) {
-            return false;
+            return null;
         }
         if (!transcript.validateAndAppend("T_3", proof.getProof().getT3())) {
-            return false;
+            return null;
         }
         if (!transcript.validateAndAppend("T_4", proof.getProof().getT4())) {
-            return false;
+            return null;
         }
         if (!transcript.validateAndAppend("T_5", proof.getProof().getT5())) {
-            return false;
+            return null;
         }
         if (!transcript.validateAndAppend("T_6", proof.getProof().getT6())) {
-            return false;
+            return null;
         }
 
         Scalar u = transcript.challengeScalar("u");
@@ -165,64 +228,26 @@ public class Verifier extends ConstraintSystem {
 
         Scalar w = transcript.challengeScalar("w");
 
-        VecPoly wp = flattenedConstraints(z);
-        List<Scalar> wL = wp.get(0);
-        List<Scalar> wR = wp.get(1);
-        List<Scalar> wO = wp.get(2);
-        List<Scalar> wV = wp.get(3);
+        VecPoly wp = flattenedConstraints(z, nPadded);
+        ScalarVector wL = wp.get(0);
+        ScalarVector wR = wp.get(1);
+        ScalarVector wO = wp.get(2);
+        ScalarVector wV = wp.get(3);
 
-        InnerProductProof.IPPVer ippVer = proof.getProof().getIppProof().scalarsVer(nPadded, transcript);
+        // y is inverted together with the inner product challenges
+        InnerProductProof.IPPVer ippVer = proof.getProof().getIppProof().scalarsVer(nPadded, transcript, y, pool);
         if (ippVer == null) {
-            return false;
+            return null;
         }
 
         Scalar a = proof.getProof().getIppProof().getA();
         Scalar b = proof.getProof().getIppProof().getB();
 
-        Scalar y_inv = y.invert();
-
-        List<Scalar> exp_y_inv = new ArrayList<>();
-        Scalar eyinv = BulletProofs.factory.one();
-        for (int i = 0; i < nPadded; i++) {
-            exp_y_inv.add(eyinv);
-            eyinv = eyinv.multiply(y_inv);
-        }
-
-        List<Scalar> yneg_wR = new ArrayList<>();
-        for (int i = 0; i < wR.size(); i++) {
-            yneg_wR.add(wR.get(i).multiply(exp_y_inv.get(i)));
-        }
-        for (int i = 0; i < pad; i++) {
-            yneg_wR.add(BulletProofs.factory.zero());
-        }
-
-        Scalar delta = Utils.innerProduct(yneg_wR.subList(0, n), wL);
-
-        List<Scalar> u_for_g = new ArrayList<>();
-        List<Scalar> u_for_h = new ArrayList<>();
-        for (int i = 0; i < n1; i++) {
-            u_for_g.add(BulletProofs.factory.one());
-            u_for_h.add(BulletProofs.factory.one());
-        }
-        for (int i = 0; i < n2 + pad; i++) {
-            u_for_g.add(u);
-            u_for_h.add(u);
-        }
-
-        List<Scalar> s = ippVer.getS().subList(0, nPadded);
-        List<Scalar> g_scalars = new ArrayList<>();
-        for (int i = 0; i < yneg_wR.size(); i++) {
-            g_scalars.add(u_for_g.get(i).multiply(x.multiply(yneg_wR.get(i)).subtract(a.multiply(s.get(i)))));
-        }
-
-        List<Scalar> h_scalars = new ArrayList<>();
-        List<Scalar> sinv = new ArrayList<>(ippVer.getS());
-        Collections.reverse(sinv);
-        for (int i = 0; i < exp_y_inv.size(); i++) {
-            Scalar wl = i < wL.size() ? wL.get(i) : BulletProofs.getFactory().zero();
-            Scalar wo = i < wO.size() ? wO.get(i) : BulletProofs.getFactory().zero();
-            h_scalars.add(u_for_h.get(i).multiply(exp_y_inv.get(i).multiply(x.multiply(wl).add(wo).subtract(b.multiply(sinv.get(i)))).subtract(BulletProofs.getFactory().one())));
-        }
+        ScalarVector g = new ScalarVector(nPadded);
+        ScalarVector h = new ScalarVector(nPadded);
+        Scalar delta = generatorScalars(wL, wR, wO, ippVer.getS(), ippVer.getExtra_inv(), x, u, a, b, n1, g, h);
+        List<Scalar> g_scalars = g.toList();
+        List<Scalar> h_scalars = h.toList();
 
         transcript.rnd();
 
@@ -235,58 +260,106 @@ public class Verifier extends ConstraintSystem {
         List<Scalar> T_scalars = Arrays.asList(r.multiply(x), rxx.multiply(x), rxx.multiply(xx), rxx.multiply(xxx), rxx.multiply(xx).multiply(xx));
         List<ECPoint> T_points = Arrays.asList(proof.getProof().getT1(), proof.getProof().getT3(), proof.getProof().getT4(), proof.getProof().getT5(), proof.getProof().getT6());
 
+        // identity second phase commitments do not contribute, single phase proofs leave them out of the MSM
+        boolean singlePhase = proof.getProof().isSinglePhase();
+
         try {
             List<Scalar> scalars = new ArrayList<>();
+            scalars.add(x); // A_I1
             scalars.add(xx); // A_O1
             scalars.add(xxx); // S1
-            scalars.add(u.multiply(x)); // A_I2
-            scalars.add(u.multiply(xx)); // A_O2
-            scalars.add(u.multiply(xxx)); // S2
-            for (Scalar it : wV) {
-                scalars.add(it.multiply(rxx));
+            if (!singlePhase) {
+                scalars.add(u.multiply(x)); // A_I2
+                scalars.add(u.multiply(xx)); // A_O2
+                scalars.add(u.multiply(xxx)); // S2
             }
+            scalars.addAll(wV.mul(rxx).toList());
             scalars.addAll(T_scalars);
-            scalars.add(w.multiply(proof.getProof().getTx().subtract(a.multiply(b))).add(r.multiply(xx.multiply(wp.getC().add(delta)).subtract(proof.getProof().getTx()))));
-            scalars.add(BulletProofs.getFactory().zero().subtract(proof.getProof().getEBlinding()).subtract(r.multiply(proof.getProof().getTxBlinding())));
-            scalars.addAll(g_scalars);
-            scalars.addAll(h_scalars);
             scalars.addAll(ippVer.getU_sq());
             scalars.addAll(ippVer.getU_inv_sq());
 
             List<ECPoint> points = new ArrayList<>();
+            points.add(proof.getProof().getA_I1().decompress());
             points.add(proof.getProof().getA_O1().decompress());
             points.add(proof.getProof().getS1().decompress());
-            points.add(proof.getProof().getA_I2().decompress());
-            points.add(proof.getProof().getA_O2().decompress());
-            points.add(proof.getProof().getS2().decompress());
+            if (!singlePhase) {
+                points.add(proof.getProof().getA_I2().decompress());
+                points.add(proof.getProof().getA_O2().decompress());
+                points.add(proof.getProof().getS2().decompress());
+            }
             for (ECPoint p : values) {
                 points.add(p.decompress());
             }
             for (ECPoint p : T_points) {
                 points.add(p.decompress());
             }
-            points.add(pedersenCommitment.getB());
-            points.add(pedersenCommitment.getBlinding());
-            points.addAll(gens.getG(nPadded));
-            points.addAll(gens.getH(nPadded));
             for (ECPoint p : proof.getProof().getIppProof().getL()) {
                 points.add(p.decompress());
             }
             for (ECPoint p : proof.getProof().getIppProof().getR()) {
                 points.add(p.decompress());
             }
+            if (points.contains(null)) {
+                return null;
+            }
 
-            ECPoint check = Utils.multiscalarMul(x, scalars, proof.getProof().getA_I1().decompress(), points);
+            Scalar bScalar = w.multiply(proof.getProof().getTx().subtract(a.multiply(b))).add(r.multiply(xx.multiply(wp.getC().add(delta)).subtract(proof.getProof().getTx())));
+            Scalar blindingScalar = BulletProofs.getFactory().zero().subtract(proof.getProof().getEBlinding()).subtract(r.multiply(proof.getProof().getTxBlinding()));
 
-            return BulletProofs.getFactory().identity().equals(check);
+            return new Check(scalars, points, bScalar, blindingScalar, g_scalars, h_scalars, pedersenCommitment, gens.getG(nPadded), gens.getH(nPadded));
         } catch (Exception e) {
             logger.error("Failed check", e);
-            return false;
+            return null;
+        }
+    }
+
+    // g = u_for_g * (x * y^-i * wR - a * s), h = u_for_h * (y^-i * (x * wL + wO - b * s^-1) - 1), u_for_g/h is one for the first phase and u for the second one.
+    //  Computed chunk by chunk so the intermediates of a chunk stay in cache, chunks are split across the pool. Returns delta = <y^-i * wR, wL>
+    private Scalar generatorScalars(ScalarVector wL, ScalarVector wR, ScalarVector wO, ScalarVector s, Scalar y_inv, Scalar x, Scalar u, Scalar a, Scalar b, int n1, ScalarVector g, ScalarVector h) {
+        int size = g.size();
+        ScalarVector sinv = s.reversed();
+        Scalar minusA = BulletProofs.getFactory().zero().subtract(a);
+        Scalar minusB = BulletProofs.getFactory().zero().subtract(b);
+
+        int chunks = (size + ScalarVector.PARALLEL_CHUNK - 1) / ScalarVector.PARALLEL_CHUNK;
+        Scalar[] deltas = new Scalar[chunks];
+        IntConsumer task = c -> {
+            int from = c * ScalarVector.PARALLEL_CHUNK;
+            int to = Math.min(size, from + ScalarVector.PARALLEL_CHUNK);
+            int len = to - from;
+
+            ScalarVector exp_y_inv = ScalarVector.powers(y_inv, from, len);
+            ScalarVector gc = wR.copy(from, to).hadamard(exp_y_inv);
+            deltas[c] = gc.innerProduct(0, wL, from, len);
+            gc.mul(x).mulAdd(s, from, minusA);
+
+            ScalarVector hc = wL.copy(from, to).mul(x).add(wO, from).mulAdd(sinv, from, minusB).hadamard(exp_y_inv).add(BulletProofs.getFactory().minus_one());
+
+            if (to > n1) {
+                int start = Math.max(from, n1) - from;
+                gc.mul(start, len, u);
+                hc.mul(start, len, u);
+            }
+            g.put(from, gc);
+            h.put(from, hc);
+        };
+
+        if (pool != null && chunks > 1) {
+            pool.submit(() -> IntStream.range(0, chunks).parallel().forEach(task)).join();
+        } else {
+            IntStream.range(0, chunks).forEach(task);
         }
+
+        Scalar delta = BulletProofs.getFactory().zero();
+        for (Scalar d : deltas) {
+            delta = delta.add(d);
+        }
+        return delta;
     }
 
     @Override
     public LRO multiply(LinearCombination left, LinearCombination right) {
+        checkMutable();
         Variable l = Variable.multiplierLeft(numVars);
         Variable r = Variable.multiplierRight(numVars);
         Variable o = Variable.multiplierOutput(numVars);
@@ -301,4 +374,42 @@ public class Verifier extends ConstraintSystem {
 
         return new LRO(l, r, o);
     }
+
+    // The verification equation of one proof: sum(scalars * points) + bScalar * B + blindingScalar * B_blinding + <gScalars, G> + <hScalars, H> == 0
+    @Getter
+    @AllArgsConstructor
+    static class Check {
+
+        private final List<Scalar> scalars;
+
+        private final List<ECPoint> points;
+
+        private final Scalar bScalar;
+
+        private final Scalar blindingScalar;
+
+        private final List<Scalar> gScalars;
+
+        private final List<Scalar> hScalars;
+
+        private final PedersenCommitment pedersenCommitment;
+
+        private final List<ECPoint> G;
+
+        private final List<ECPoint> H;
+
+        public ECPoint evaluate(ForkJoinPool pool) {
+            List<Scalar> s = new ArrayList<>(scalars);
+            s.add(blindingScalar);
+            s.addAll(gScalars);
+            s.addAll(hScalars);
+
+            List<ECPoint> p = new ArrayList<>(points);
+            p.add(pedersenCommitment.getBlinding());
+            p.addAll(G);
+            p.addAll(H);
+
+            return Utils.multiscalarMul(bScalar, s, pedersenCommitment.getB(), p, pool);
+        }
+    }
 }
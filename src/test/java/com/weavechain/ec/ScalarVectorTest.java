@@ -0,0 +1,358 @@
+package com.weavechain.ec;
+
+import com.weavechain.zk.bulletproofs.BulletProofs;
+import org.testng.annotations.Test;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.concurrent.ForkJoinPool;
+
+import static com.google.common.truth.Truth.assertThat;
+
+// Differential checks of the Montgomery limb arithmetic against the reference Scalar implementation
+public class ScalarVectorTest {
+
+    private static final BigInteger L = BigInteger.ONE.shiftLeft(252).add(new BigInteger("27742317777372353535851937790883648493"));
+
+    private final ECPointFactory factory = new Curve25519Factory();
+
+    private final Random random = new Random(42);
+
+    private Scalar scalar(BigInteger value) {
+        byte[] data = new byte[32];
+        byte[] be = value.toByteArray();
+        for (int i = 0; i < be.length && i < 32; i++) {
+            data[i] = be[be.length - 1 - i];
+        }
+        return factory.fromBits(data);
+    }
+
+    private Scalar randomScalar() {
+        byte[] data = new byte[64];
+        random.nextBytes(data);
+        return factory.fromBytesModOrderWide(data);
+    }
+
+    // values next to 0 and l, limb boundaries and random values
+    private List<Scalar> samples(int count) {
+        List<Scalar> result = new ArrayList<>();
+        for (BigInteger v : Arrays.asList(BigInteger.ZERO, BigInteger.ONE, BigInteger.TWO, L.subtract(BigInteger.ONE), L.subtract(BigInteger.TWO),
+                L.subtract(BigInteger.ONE.shiftLeft(52)), L.subtract(BigInteger.ONE.shiftLeft(104)), BigInteger.ONE.shiftLeft(252).subtract(BigInteger.ONE),
+                BigInteger.ONE.shiftLeft(252), BigInteger.ONE.shiftLeft(52).subtract(BigInteger.ONE), BigInteger.ONE.shiftLeft(208))) {
+            result.add(scalar(v));
+        }
+        while (result.size() < count) {
+            result.add(randomScalar());
+        }
+        return result;
+    }
+
+    private static void assertEqual(Scalar actual, Scalar expected) {
+        assertThat(actual.toByteArray()).isEqualTo(expected.toByteArray());
+    }
+
+    @Test
+    public void testLimbsRoundTrip() {
+        long[] scratch = new long[ScalarLimbs.SCRATCH];
+        for (Scalar s : samples(64)) {
+            long[] limbs = new long[ScalarLimbs.LIMBS];
+            ScalarLimbs.fromBytes(s.toByteArray(), limbs, 0, scratch);
+            assertThat(ScalarLimbs.toBytes(limbs, 0, scratch)).isEqualTo(s.toByteArray());
+        }
+
+        // unreduced encodings above l
+        byte[] above = L.add(BigInteger.TEN).toByteArray();
+        byte[] data = new byte[32];
+        for (int i = 0; i < above.length && i < 32; i++) {
+            data[i] = above[above.length - 1 - i];
+        }
+        long[] limbs = new long[ScalarLimbs.LIMBS];
+        ScalarLimbs.fromBytes(data, limbs, 0, scratch);
+        assertThat(ScalarLimbs.toBytes(limbs, 0, scratch)).isEqualTo(scalar(BigInteger.TEN).toByteArray());
+    }
+
+    @Test
+    public void testMontMul() {
+        long[] scratch = new long[ScalarLimbs.SCRATCH];
+        List<Scalar> values = samples(48);
+        for (Scalar a : values) {
+            for (Scalar b : values) {
+                long[] la = ScalarVector.limbs(a);
+                long[] lb = ScalarVector.limbs(b);
+                long[] r = new long[ScalarLimbs.LIMBS];
+                ScalarLimbs.montMul(la, 0, lb, 0, r, 0, scratch);
+                assertThat(ScalarLimbs.toBytes(r, 0, scratch)).isEqualTo(a.multiply(b).toByteArray());
+            }
+        }
+    }
+
+    // mulAddWide accumulates up to LAZY_TERMS products before a single montReduce
+    @Test
+    public void testLazyReduction() {
+        long[] scratch = new long[ScalarLimbs.SCRATCH];
+        Scalar max = scalar(L.subtract(BigInteger.ONE));
+        for (int round = 0; round < 16; round++) {
+            List<Scalar> a = round == 0 ? new ArrayList<>() : samples(ScalarVector.LAZY_TERMS);
+            List<Scalar> b = round == 0 ? new ArrayList<>() : samples(ScalarVector.LAZY_TERMS);
+            if (round == 0) {
+                for (int i = 0; i < ScalarVector.LAZY_TERMS; i++) {
+                    a.add(max);
+                    b.add(max);
+                }
+            } else {
+                Collections.shuffle(b, random);
+            }
+
+            Scalar expected = factory.zero();
+            for (int i = 0; i < ScalarVector.LAZY_TERMS; i++) {
+                ScalarLimbs.mulAddWide(ScalarVector.limbs(a.get(i)), 0, ScalarVector.limbs(b.get(i)), 0, scratch);
+                expected = a.get(i).multiplyAndAdd(b.get(i), expected);
+            }
+            long[] r = new long[ScalarLimbs.LIMBS];
+            ScalarLimbs.montReduce(scratch, r, 0);
+            assertThat(ScalarLimbs.toBytes(r, 0, scratch)).isEqualTo(expected.toByteArray());
+        }
+    }
+
+    @Test
+    public void testAddSub() {
+        long[] scratch = new long[ScalarLimbs.SCRATCH];
+        List<Scalar> values = samples(32);
+        for (Scalar a : values) {
+            for (Scalar b : values) {
+                long[] r = new long[ScalarLimbs.LIMBS];
+                ScalarLimbs.add(ScalarVector.limbs(a), 0, ScalarVector.limbs(b), 0, r, 0);
+                assertThat(ScalarLimbs.toBytes(r, 0, scratch)).isEqualTo(a.add(b).toByteArray());
+                ScalarLimbs.sub(ScalarVector.limbs(a), 0, ScalarVector.limbs(b), 0, r, 0);
+                assertThat(ScalarLimbs.toBytes(r, 0, scratch)).isEqualTo(a.subtract(b).toByteArray());
+            }
+        }
+    }
+
+    @Test
+    public void testInvert() {
+        List<Scalar> values = samples(100).subList(1, 100);
+        ScalarVector inverted = ScalarVector.from(values).invert();
+        for (int i = 0; i < values.size(); i++) {
+            assertEqual(inverted.get(i), values.get(i).invert());
+        }
+        assertEqual(ScalarVector.from(values).product(), values.stream().reduce(factory.one(), Scalar::multiply));
+    }
+
+    @Test(expectedExceptions = ArithmeticException.class)
+    public void testInvertZero() {
+        ScalarVector.from(samples(8)).invert();
+    }
+
+    @Test
+    public void testInnerProduct() {
+        for (int n : new int[] { 1, 7, ScalarVector.LAZY_TERMS, ScalarVector.LAZY_TERMS + 1, 300 }) {
+            List<Scalar> a = samples(n + 11).subList(0, n);
+            List<Scalar> b = new ArrayList<>(a);
+            Collections.reverse(b);
+
+            Scalar expected = factory.zero();
+            for (int i = 0; i < n; i++) {
+                expected = a.get(i).multiplyAndAdd(b.get(i), expected);
+            }
+            assertEqual(ScalarVector.from(a).innerProduct(ScalarVector.from(b)), expected);
+        }
+    }
+
+    @Test
+    public void testPowers() {
+        for (Scalar x : samples(16)) {
+            ScalarVector powers = ScalarVector.powers(x, 40);
+            ScalarVector offset = ScalarVector.powers(x, 13, 20);
+            Scalar expected = factory.one();
+            for (int i = 0; i < 40; i++) {
+                assertEqual(powers.get(i), expected);
+                if (i >= 13 && i < 33) {
+                    assertEqual(offset.get(i - 13), expected);
+                }
+                expected = expected.multiply(x);
+            }
+        }
+    }
+
+    @Test
+    public void testSubsetProducts() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int k : new int[] { 1, 3, 12 }) {
+                List<Scalar> factors = samples(k + 11).subList(11, 11 + k);
+                Scalar base = randomScalar();
+                for (int size : new int[] { 1 << k, (1 << k) - 1 }) {
+                    ScalarVector sequential = ScalarVector.subsetProducts(base, ScalarVector.from(factors), size, null);
+                    ScalarVector parallel = ScalarVector.subsetProducts(base, ScalarVector.from(factors), size, pool);
+                    for (int i = 0; i < size; i++) {
+                        Scalar expected = base;
+                        for (int j = 0; j < k; j++) {
+                            if (((i >>> j) & 1) != 0) {
+                                expected = expected.multiply(factors.get(k - 1 - j));
+                            }
+                        }
+                        assertEqual(sequential.get(i), expected);
+                        assertEqual(parallel.get(i), expected);
+                    }
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // scalars modulo another prime, vectors built under a factory without limbs must not reduce modulo l
+    private static final BigInteger P = BigInteger.ONE.shiftLeft(255).subtract(BigInteger.valueOf(19));
+
+    private static class ModScalar implements Scalar {
+
+        private final BigInteger value;
+
+        ModScalar(BigInteger value) {
+            this.value = value.mod(P);
+        }
+
+        @Override
+        public byte[] toByteArray() {
+            return value.toByteArray();
+        }
+
+        @Override
+        public Scalar invert() {
+            return new ModScalar(value.modInverse(P));
+        }
+
+        @Override
+        public Scalar square() {
+            return multiply(this);
+        }
+
+        @Override
+        public Scalar reduce() {
+            return this;
+        }
+
+        @Override
+        public Scalar add(Scalar other) {
+            return new ModScalar(value.add(((ModScalar)other).value));
+        }
+
+        @Override
+        public Scalar subtract(Scalar other) {
+            return new ModScalar(value.subtract(((ModScalar)other).value));
+        }
+
+        @Override
+        public Scalar multiply(Scalar other) {
+            return new ModScalar(value.multiply(((ModScalar)other).value));
+        }
+
+        @Override
+        public Scalar divide(Scalar other) {
+            return multiply(other.invert());
+        }
+
+        @Override
+        public Scalar multiplyAndAdd(Scalar mul, Scalar add) {
+            return multiply(mul).add(add);
+        }
+
+        @Override
+        public byte[] toRadix2w(int w) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private static class ModFactory extends Curve25519Factory {
+
+        @Override
+        public boolean hasScalarLimbs() {
+            return false;
+        }
+
+        @Override
+        public Scalar zero() {
+            return new ModScalar(BigInteger.ZERO);
+        }
+
+        @Override
+        public Scalar one() {
+            return new ModScalar(BigInteger.ONE);
+        }
+
+        @Override
+        public Scalar minus_one() {
+            return new ModScalar(BigInteger.ONE.negate());
+        }
+    }
+
+    private static BigInteger big(Scalar s) {
+        return ((ModScalar)s).value;
+    }
+
+    private static List<BigInteger> big(ScalarVector v) {
+        return v.toList().stream().map(ScalarVectorTest::big).collect(Collectors.toList());
+    }
+
+    @Test
+    public void testFactoryWithoutLimbs() {
+        ECPointFactory previous = BulletProofs.getFactory();
+        BulletProofs.setFactory(new ModFactory());
+        try {
+            int n = 8;
+            List<Scalar> a = new ArrayList<>();
+            List<Scalar> b = new ArrayList<>();
+            for (int i = 0; i < n; i++) {
+                a.add(new ModScalar(P.subtract(BigInteger.valueOf(i + 1))));
+                b.add(new ModScalar(new BigInteger(250, random).add(BigInteger.ONE)));
+            }
+            Scalar x = b.get(0);
+            BigInteger bx = big(x);
+
+            BigInteger expected = BigInteger.ZERO;
+            for (int i = 0; i < n; i++) {
+                expected = expected.add(big(a.get(i)).multiply(big(b.get(i))));
+            }
+            assertThat(big(ScalarVector.from(a).innerProduct(ScalarVector.from(b)))).isEqualTo(expected.mod(P));
+
+            List<BigInteger> powers = big(ScalarVector.powers(x, 5, 4));
+            for (int i = 0; i < 4; i++) {
+                assertThat(powers.get(i)).isEqualTo(bx.modPow(BigInteger.valueOf(5 + i), P));
+            }
+
+            ScalarVector inverted = ScalarVector.from(b).invert();
+            ScalarVector folded = ScalarVector.from(a).fold(x, b.get(1));
+            ScalarVector combined = ScalarVector.linearCombination(Arrays.asList(ScalarVector.from(a), ScalarVector.from(b)), Arrays.asList(x, b.get(1)));
+            ScalarVector subsets = ScalarVector.subsetProducts(x, ScalarVector.from(b.subList(0, 3)), n, null);
+            for (int i = 0; i < n; i++) {
+                assertThat(big(inverted.get(i))).isEqualTo(big(b.get(i)).modInverse(P));
+                assertThat(big(combined.get(i))).isEqualTo(big(a.get(i)).multiply(bx).add(big(b.get(i)).multiply(big(b.get(1)))).mod(P));
+
+                BigInteger product = bx;
+                for (int j = 0; j < 3; j++) {
+                    if (((i >>> j) & 1) != 0) {
+                        product = product.multiply(big(b.get(2 - j))).mod(P);
+                    }
+                }
+                assertThat(big(subsets.get(i))).isEqualTo(product);
+            }
+            for (int i = 0; i < n / 2; i++) {
+                assertThat(big(folded.get(i))).isEqualTo(big(a.get(i)).multiply(bx).add(big(a.get(n / 2 + i)).multiply(big(b.get(1)))).mod(P));
+            }
+
+            SparseScalarMatrix m = SparseScalarMatrix.builder(2, n).add(0, 1, x).sub(1, 2, x).add(1, 2, b.get(1)).build();
+            List<BigInteger> mx = big(m.multiply(ScalarVector.from(a), 3, null));
+            assertThat(mx.get(0)).isEqualTo(bx.multiply(big(a.get(1))).mod(P));
+            assertThat(mx.get(1)).isEqualTo(big(b.get(1)).subtract(bx).multiply(big(a.get(2))).mod(P));
+            assertThat(mx.get(2)).isEqualTo(BigInteger.ZERO);
+        } finally {
+            BulletProofs.setFactory(previous);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.weavechain.zk.bulletproofs;
+
+import com.weavechain.ec.ECPoint;
+import com.weavechain.ec.Scalar;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class CircuitTemplateTest {
+
+    // a gadget transcript with its own version and domain separator
+    private static Transcript transcript() {
+        Transcript transcript = new Transcript(TranscriptVersion.v2);
+        transcript.append("dom-sep", "product-gadget");
+        return transcript;
+    }
+
+    // x * y = 15
+    private static void constrain(ConstraintSystem cs, Variable x, Variable y) {
+        LRO lro = cs.multiply(LinearCombination.from(x), LinearCombination.from(y));
+        cs.constrainLCWithScalar(LinearCombination.from(lro.getOutput()), Utils.scalar(15L));
+    }
+
+    private static Verifier verifier(List<ECPoint> commitments) {
+        Verifier verifier = new Verifier(transcript());
+        Variable x = verifier.commit(commitments.get(0));
+        Variable y = verifier.commit(commitments.get(1));
+        constrain(verifier, x, y);
+        return verifier;
+    }
+
+    @Test
+    public void testRecordedTranscript() throws NoSuchAlgorithmException, IOException {
+        PedersenCommitment pc = PedersenCommitment.getDefault();
+        BulletProofGenerators generators = new BulletProofGenerators(16, 1);
+
+        Prover prover = new Prover(transcript(), pc);
+        Commitment x = prover.commit(Utils.scalar(3L), Utils.randomScalar());
+        Commitment y = prover.commit(Utils.scalar(5L), Utils.randomScalar());
+        constrain(prover, x.getVariable(), y.getVariable());
+        Proof proof = new Proof(prover.prove(generators), Arrays.asList(x.getCommitment(), y.getCommitment()));
+
+        assertThat(verifier(proof.getCommitments()).verify(proof, pc, generators)).isTrue();
+
+        CircuitTemplate template = CircuitTemplate.record(verifier(proof.getCommitments()));
+        assertThat(template.verify(proof, pc, generators)).isTrue();
+        assertThat(template.verify(proof, pc, generators)).isTrue();
+
+        // proofs from the template bind the same transcript as the gadget verifier
+        List<Scalar> values = Arrays.asList(Utils.scalar(5L), Utils.scalar(3L));
+        List<Scalar> blindings = Arrays.asList(Utils.randomScalar(), Utils.randomScalar());
+        Proof other = template.prove(values, blindings, values.subList(0, 1), values.subList(1, 2), null, pc, generators);
+        assertThat(verifier(other.getCommitments()).verify(other, pc, generators)).isTrue();
+
+        CircuitTemplate recorded = CircuitTemplate.record(prover);
+        assertThat(recorded.verify(proof, pc, generators)).isTrue();
+
+        // a different transcript start does not verify
+        Verifier plain = new Verifier(new Transcript(TranscriptVersion.v2));
+        constrain(plain, plain.commit(proof.getCommitment(0)), plain.commit(proof.getCommitment(1)));
+        assertThat(plain.verify(proof, pc, generators)).isFalse();
+    }
+
+    @Test
+    public void testMissingVerifierCached() {
+        AtomicInteger built = new AtomicInteger();
+        String key = "missing:" + System.nanoTime();
+        assertThat(CircuitTemplate.get(key, () -> { built.incrementAndGet(); return null; })).isNull();
+        assertThat(CircuitTemplate.get(key, () -> { built.incrementAndGet(); return null; })).isNull();
+        assertThat(built.get()).isEqualTo(1);
+    }
+}
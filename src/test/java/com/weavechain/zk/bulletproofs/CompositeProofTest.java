@@ -0,0 +1,71 @@
+package com.weavechain.zk.bulletproofs;
+
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.security.NoSuchAlgorithmException;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class CompositeProofTest {
+
+    private final TestGadgets.Range range = new TestGadgets.Range();
+
+    private final TestGadgets.Equal equal = new TestGadgets.Equal();
+
+    private CompositeProof prove(long x, long y, PedersenCommitment pc, BulletProofGenerators generators) {
+        CompositeProof.Builder builder = CompositeProof.builder(pc);
+        int x0 = builder.commit(BigInteger.valueOf(x), Utils.randomScalar());
+        int x1 = builder.commit(BigInteger.valueOf(y), Utils.randomScalar());
+        return builder
+                .add(range, new TestGadgets.Params(10, 100, 32), null, null, x0)
+                .add(equal, new TestGadgets.Params(), null, null, x0, x1)
+                .add(range, new TestGadgets.Params(0, 60, 32), null, null, x1)
+                .prove(generators);
+    }
+
+    private CompositeProof.Statement statement(long max) {
+        return CompositeProof.statement()
+                .add(range, new TestGadgets.Params(10, 100, 32), 0)
+                .add(equal, new TestGadgets.Params(), 0, 1)
+                .add(range, new TestGadgets.Params(0, max, 32), 1);
+    }
+
+    @Test
+    public void testRoundTrip() throws NoSuchAlgorithmException, IOException {
+        PedersenCommitment pc = PedersenCommitment.getDefault();
+        BulletProofGenerators generators = new BulletProofGenerators(256, 1);
+
+        CompositeProof proof = CompositeProof.deserialize(prove(50, 50, pc, generators).serialize());
+        assertThat(proof.getShared()).isEqualTo(2);
+        assertThat(proof.getGadgetCommitments()).hasSize(3);
+        assertThat(proof.getGadgetCommitments().get(1)).isEqualTo(0);
+        assertThat(proof.getProof().getCommitments()).hasSize(6);
+
+        CompositeProof.Statement statement = statement(60);
+        assertThat(statement.verify(proof, pc, generators)).isTrue();
+
+        // statements are reusable for further proofs of the same shape
+        assertThat(statement.verify(proof, pc, generators)).isTrue();
+        assertThat(statement.verify(prove(20, 20, pc, generators), pc, generators)).isTrue();
+
+        assertThat(statement(49).verify(proof, pc, generators)).isFalse();
+    }
+
+    @Test
+    public void testRejects() throws NoSuchAlgorithmException, IOException {
+        PedersenCommitment pc = PedersenCommitment.getDefault();
+        BulletProofGenerators generators = new BulletProofGenerators(256, 1);
+
+        assertThat(statement(60).verify(prove(50, 51, pc, generators), pc, generators)).isFalse();
+        assertThat(statement(60).verify(prove(70, 70, pc, generators), pc, generators)).isFalse();
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testNotComposable() throws NoSuchAlgorithmException {
+        CompositeProof.Builder builder = CompositeProof.builder(PedersenCommitment.getRandom());
+        int x = builder.commit(BigInteger.ONE, Utils.randomScalar());
+        builder.add(new TestGadgets.Shuffle(), new TestGadgets.Params(1), null, null, x);
+    }
+}
@@ -0,0 +1,67 @@
+package com.weavechain.zk.bulletproofs;
+
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class GeneratorsTableTest {
+
+    private static Path writeTable() throws IOException {
+        Path path = Files.createTempFile("generators", ".bpgt");
+        path.toFile().deleteOnExit();
+        GeneratorsTable.write(new BulletProofGenerators(8, 2), path);
+        return path;
+    }
+
+    private static void assertRejected(Path path) {
+        try {
+            GeneratorsTable.load(path);
+            throw new AssertionError("Expected IOException");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        BulletProofGenerators expected = new BulletProofGenerators(8, 2);
+        BulletProofGenerators loaded = GeneratorsTable.load(writeTable());
+        for (int i = 0; i < 2; i++) {
+            for (int j = 0; j < 8; j++) {
+                assertThat(loaded.getG().get(i).get(j).toByteArray()).isEqualTo(expected.getG().get(i).get(j).toByteArray());
+                assertThat(loaded.getH().get(i).get(j).toByteArray()).isEqualTo(expected.getH().get(i).get(j).toByteArray());
+            }
+        }
+    }
+
+    // a label length with the sign bit set or past the end of the file is a format error
+    @Test
+    public void testInvalidLabelLength() throws IOException {
+        Path path = writeTable();
+        byte[] data = Files.readAllBytes(path);
+        data[8] = (byte)0xFF;
+        data[9] = (byte)0xFF;
+        Files.write(path, data);
+        assertRejected(path);
+
+        data[8] = 0;
+        data[9] = (byte)0x7F;
+        Files.write(path, data);
+        assertRejected(path);
+    }
+
+    @Test
+    public void testTruncated() throws IOException {
+        Path path = writeTable();
+        byte[] data = Files.readAllBytes(path);
+        for (int size : new int[] { 0, 5, 12, 40, data.length - 1 }) {
+            Files.write(path, Arrays.copyOf(data, size));
+            assertRejected(path);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.weavechain.zk.bulletproofs;
+
+import com.weavechain.ec.Curve25519Factory;
+import com.weavechain.ec.ECPoint;
+import com.weavechain.ec.ECPointFactory;
+import com.weavechain.ec.FixedBaseTable;
+import com.weavechain.ec.Scalar;
+import org.testng.annotations.Test;
+
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class PedersenCommitmentTest {
+
+    // cached commitment keys and their tables follow the backend set through BulletProofs.setFactory
+    @Test
+    public void testFactoryChange() throws NoSuchAlgorithmException {
+        ECPointFactory previous = BulletProofs.getFactory();
+        String encoding = "3a7f19ec";
+        try {
+            PedersenCommitment pc = PedersenCommitment.getDefault();
+            PedersenCommitment registered = PedersenCommitment.from(encoding);
+            assertThat(PedersenCommitment.getDefault()).isSameInstanceAs(pc);
+            assertThat(PedersenCommitment.from(encoding)).isSameInstanceAs(registered);
+
+            AtomicInteger tables = new AtomicInteger();
+            BulletProofs.setFactory(new Curve25519Factory() {
+                @Override
+                public FixedBaseTable fixedBaseTable(ECPoint base) {
+                    tables.incrementAndGet();
+                    return super.fixedBaseTable(base);
+                }
+            });
+
+            PedersenCommitment other = PedersenCommitment.getDefault();
+            assertThat(other).isNotEqualTo(pc);
+            assertThat(other.getBlinding().toByteArray()).isEqualTo(pc.getBlinding().toByteArray());
+            assertThat(PedersenCommitment.getDefault()).isSameInstanceAs(other);
+            assertThat(PedersenCommitment.from(encoding)).isNotEqualTo(registered);
+            assertThat(PedersenCommitment.from(encoding)).isSameInstanceAs(PedersenCommitment.from(encoding));
+
+            other.commit(Utils.scalar(7L), Utils.randomScalar());
+            assertThat(tables.get()).isEqualTo(2);
+        } finally {
+            BulletProofs.setFactory(previous);
+        }
+    }
+
+    // the batch encodes doubled half commitments, it must match committing one by one
+    @Test
+    public void testCommitAll() throws NoSuchAlgorithmException {
+        PedersenCommitment pc = PedersenCommitment.getDefault();
+        List<Scalar> values = new ArrayList<>();
+        List<Scalar> blindings = new ArrayList<>();
+        values.add(Utils.scalar(0L));
+        blindings.add(Utils.scalar(0L));
+        for (long i = 0; i < 20; i++) {
+            values.add(i % 3 == 0 ? Utils.randomScalar() : Utils.scalar(i));
+            blindings.add(Utils.randomScalar());
+        }
+
+        List<ECPoint> points = pc.commitAll(values, blindings);
+        assertThat(points).hasSize(values.size());
+        for (int i = 0; i < values.size(); i++) {
+            ECPoint expected = pc.commit(values.get(i), blindings.get(i));
+            assertThat(points.get(i).toByteArray()).isEqualTo(expected.toByteArray());
+            assertThat(points.get(i).decompress().toByteArray()).isEqualTo(expected.toByteArray());
+        }
+        assertThat(pc.commitAll(new ArrayList<>(), new ArrayList<>())).hasSize(0);
+    }
+}
@@ -0,0 +1,65 @@
+package com.weavechain.zk.bulletproofs;
+
+import org.msgpack.core.MessageBufferPacker;
+import org.msgpack.core.MessagePack;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class ProofTest {
+
+    private static void constrain(ConstraintSystem cs, Variable x, Variable y) {
+        LRO lro = cs.multiply(LinearCombination.from(x), LinearCombination.from(y));
+        cs.constrainLCWithScalar(LinearCombination.from(lro.getOutput()), Utils.scalar(21L));
+    }
+
+    private static boolean verify(Proof proof, PedersenCommitment pc, BulletProofGenerators generators) {
+        Verifier verifier = new Verifier(new Transcript());
+        constrain(verifier, verifier.commit(proof.getCommitment(0)), verifier.commit(proof.getCommitment(1)));
+        return verifier.verify(proof, pc, generators);
+    }
+
+    private static Proof prove(PedersenCommitment pc, BulletProofGenerators generators) {
+        Prover prover = new Prover(new Transcript(), pc);
+        Commitment x = prover.commit(Utils.scalar(3L), Utils.randomScalar());
+        Commitment y = prover.commit(Utils.scalar(7L), Utils.randomScalar());
+        constrain(prover, x.getVariable(), y.getVariable());
+        return new Proof(prover.prove(generators), Arrays.asList(x.getCommitment(), y.getCommitment()));
+    }
+
+    @Test
+    public void testEncodings() throws NoSuchAlgorithmException, IOException {
+        PedersenCommitment pc = PedersenCommitment.getDefault();
+        BulletProofGenerators generators = new BulletProofGenerators(16, 1);
+        Proof proof = prove(pc, generators);
+
+        // the default encoding stays the original one, starting with the number of commitments
+        byte[] legacy = proof.serialize();
+        assertThat(MessagePack.newDefaultUnpacker(legacy).unpackInt()).isEqualTo(2);
+        assertThat(verify(Proof.deserialize(legacy), pc, generators)).isTrue();
+
+        byte[] compact = proof.serializeCompact();
+        assertThat(MessagePack.newDefaultUnpacker(compact).unpackInt()).isEqualTo(Proof.COMPACT_MARKER);
+        assertThat(compact.length < legacy.length).isTrue();
+        assertThat(verify(Proof.deserialize(compact), pc, generators)).isTrue();
+        assertThat(Proof.deserialize(compact).serialize()).isEqualTo(legacy);
+
+        ByteBuffer buffer = ByteBuffer.allocate(ProofView.size(proof));
+        proof.write(buffer);
+        buffer.flip();
+        assertThat(verify(Proof.read(buffer), pc, generators)).isTrue();
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void testNegativeLength() throws IOException {
+        MessageBufferPacker packer = MessagePack.newDefaultBufferPacker();
+        packer.packInt(-2);
+        packer.close();
+        Proof.deserialize(packer.toMessageBuffer().toByteArray());
+    }
+}
@@ -0,0 +1,58 @@
+package com.weavechain.zk.bulletproofs;
+
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class RandomizedConstraintsTest {
+
+    @Test
+    public void testShuffle() throws NoSuchAlgorithmException, IOException {
+        PedersenCommitment pc = PedersenCommitment.getDefault();
+        BulletProofGenerators generators = new BulletProofGenerators(16, 1);
+        TestGadgets.Shuffle gadget = new TestGadgets.Shuffle();
+        TestGadgets.Params params = new TestGadgets.Params(3);
+
+        Proof proof = gadget.generate(new long[] { 3, 7, 11, 11, 3, 7 }, params, null, pc, generators);
+        assertThat(proof.getProof().isSinglePhase()).isFalse();
+        assertThat(gadget.verify(params, proof, pc, generators)).isTrue();
+
+        Proof wrong = gadget.generate(new long[] { 3, 7, 11, 11, 3, 8 }, params, null, pc, generators);
+        assertThat(gadget.verify(params, wrong, pc, generators)).isFalse();
+    }
+
+    // randomized constraints cannot be recorded in a template, verification falls back to the gadget
+    //  and the key is remembered, so later proofs do not build the verifier for the template path again
+    @Test
+    public void testTemplateFallback() throws NoSuchAlgorithmException, IOException {
+        PedersenCommitment pc = PedersenCommitment.getDefault();
+        BulletProofGenerators generators = new BulletProofGenerators(16, 1);
+        AtomicInteger built = new AtomicInteger();
+        TestGadgets.Shuffle gadget = new TestGadgets.Shuffle() {
+            @Override
+            public Verifier verifier(TestGadgets.Params params, Proof proof) {
+                built.incrementAndGet();
+                return super.verifier(params, proof);
+            }
+        };
+        TestGadgets.Params params = new TestGadgets.Params(2);
+
+        BulletProofs bulletProofs = new BulletProofs();
+        bulletProofs.registerGadget(gadget);
+        assertThat(bulletProofs.isUseCircuitTemplates()).isTrue();
+        CircuitTemplate.clear();
+
+        Proof proof = gadget.generate(new long[] { 5, 9, 9, 5 }, params, null, pc, generators);
+        assertThat(bulletProofs.verify(gadget.getType(), params, proof, pc, generators)).isTrue();
+        assertThat(built.get()).isEqualTo(2);
+        assertThat(bulletProofs.verify(gadget.getType(), params, proof, pc, generators)).isTrue();
+        assertThat(built.get()).isEqualTo(3);
+
+        Proof wrong = gadget.generate(new long[] { 5, 9, 9, 6 }, params, null, pc, generators);
+        assertThat(bulletProofs.verify(gadget.getType(), params, wrong, pc, generators)).isFalse();
+    }
+}
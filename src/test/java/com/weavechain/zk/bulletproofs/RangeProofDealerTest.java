@@ -0,0 +1,82 @@
+package com.weavechain.zk.bulletproofs;
+
+import com.weavechain.ec.Scalar;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class RangeProofDealerTest {
+
+    // runs the rounds between a dealer and m parties, corrupting the share of party bad when not negative
+    private static RangeProof run(int m, int bad, PedersenCommitment pc, BulletProofGenerators generators) {
+        RangeProofDealer dealer = new RangeProofDealer(RangeProof.newTranscript(), 32, m, pc, generators);
+
+        List<RangeProofParty> parties = new ArrayList<>();
+        List<BitCommitment> bitCommitments = new ArrayList<>();
+        for (int j = 0; j < m; j++) {
+            RangeProofParty party = new RangeProofParty(1000L * j + 1, Utils.randomScalar(), 32, pc, generators);
+            parties.add(party);
+            bitCommitments.add(party.assignPosition(j));
+        }
+
+        BitChallenge bitChallenge = dealer.receiveBitCommitments(bitCommitments);
+        List<PolyCommitment> polyCommitments = new ArrayList<>();
+        for (RangeProofParty party : parties) {
+            polyCommitments.add(party.applyBitChallenge(bitChallenge));
+        }
+
+        PolyChallenge polyChallenge = dealer.receivePolyCommitments(polyCommitments);
+        List<ProofShare> shares = new ArrayList<>();
+        for (RangeProofParty party : parties) {
+            shares.add(party.applyPolyChallenge(polyChallenge));
+        }
+
+        if (bad >= 0) {
+            ProofShare share = shares.get(bad);
+            List<Scalar> lVec = new ArrayList<>(share.getLVec());
+            lVec.set(3, lVec.get(3).add(BulletProofs.getFactory().one()));
+            shares.set(bad, new ProofShare(share.getTx(), share.getTxBlinding(), share.getEBlinding(), lVec, share.getRVec()));
+        }
+
+        return dealer.receiveShares(shares);
+    }
+
+    @Test
+    public void testRoundTrip() throws NoSuchAlgorithmException, IOException {
+        PedersenCommitment pc = PedersenCommitment.getDefault();
+        BulletProofGenerators generators = new BulletProofGenerators(32, 4);
+
+        for (int m : new int[] { 2, 4 }) {
+            RangeProof proof = run(m, -1, pc, generators);
+            assertThat(proof.getCommitments()).hasSize(m);
+            assertThat(proof.verify(32, pc, generators)).isTrue();
+            assertThat(RangeProof.deserialize(proof.serialize()).verify(32, pc, generators)).isTrue();
+        }
+    }
+
+    @Test
+    public void testCorruptedShare() throws NoSuchAlgorithmException, IOException {
+        PedersenCommitment pc = PedersenCommitment.getDefault();
+        BulletProofGenerators generators = new BulletProofGenerators(32, 4);
+
+        for (int bad = 0; bad < 4; bad++) {
+            String message = null;
+            try {
+                run(4, bad, pc, generators);
+            } catch (IllegalArgumentException e) {
+                message = e.getMessage();
+            }
+            assertThat(message).isEqualTo("Invalid proof share from party " + bad);
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testRejectsV1Transcript() throws NoSuchAlgorithmException, IOException {
+        new RangeProofDealer(new Transcript(TranscriptVersion.v1), 32, 2, PedersenCommitment.getDefault(), new BulletProofGenerators(32, 2));
+    }
+}
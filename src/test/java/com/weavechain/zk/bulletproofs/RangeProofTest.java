@@ -0,0 +1,114 @@
+package com.weavechain.zk.bulletproofs;
+
+import com.weavechain.ec.ECPoint;
+import com.weavechain.ec.Scalar;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class RangeProofTest {
+
+    private static List<Scalar> blindings(int m) {
+        List<Scalar> result = new ArrayList<>();
+        for (int i = 0; i < m; i++) {
+            result.add(Utils.randomScalar());
+        }
+        return result;
+    }
+
+    // the bit constraints rely on independent y and z challenges
+    @Test
+    public void testChallengesDiffer() {
+        Transcript transcript = RangeProof.newTranscript();
+        RangeProof.domainSeparator(transcript, 32, 1);
+        Scalar y = transcript.challengeScalar("y");
+        Scalar z = transcript.challengeScalar("z");
+        assertThat(y.toByteArray()).isNotEqualTo(z.toByteArray());
+    }
+
+    @Test
+    public void testProveVerify() throws NoSuchAlgorithmException, IOException {
+        PedersenCommitment pc = PedersenCommitment.getDefault();
+        BulletProofGenerators generators = new BulletProofGenerators(64, 4);
+
+        for (int m : new int[] { 1, 2, 4 }) {
+            List<Long> values = new ArrayList<>();
+            for (int j = 0; j < m; j++) {
+                values.add(j == 0 ? 0L : (1L << 32) - j);
+            }
+            RangeProof proof = RangeProof.prove(values, blindings(m), 32, pc, generators);
+            assertThat(proof.verify(32, pc, generators)).isTrue();
+
+            RangeProof decoded = RangeProof.deserialize(proof.serialize());
+            assertThat(decoded.verify(32, pc, generators)).isTrue();
+            assertThat(decoded.verify(16, pc, generators)).isFalse();
+        }
+
+        RangeProof full = RangeProof.prove(Collections.singletonList(-1L), blindings(1), 64, pc, generators);
+        assertThat(full.verify(64, pc, generators)).isTrue();
+    }
+
+    @Test
+    public void testTampered() throws NoSuchAlgorithmException, IOException {
+        PedersenCommitment pc = PedersenCommitment.getDefault();
+        BulletProofGenerators generators = new BulletProofGenerators(32, 2);
+        RangeProof proof = RangeProof.prove(Arrays.asList(7L, 1000L), blindings(2), 32, pc, generators);
+
+        List<ECPoint> swapped = Arrays.asList(proof.getCommitment(1), proof.getCommitment(0));
+        assertThat(new RangeProof(proof.getA(), proof.getS(), proof.getT1(), proof.getT2(), proof.getTx(), proof.getTxBlinding(), proof.getEBlinding(), proof.getIppProof(), swapped).verify(32, pc, generators)).isFalse();
+
+        Scalar tx = proof.getTx().add(BulletProofs.getFactory().one());
+        assertThat(new RangeProof(proof.getA(), proof.getS(), proof.getT1(), proof.getT2(), tx, proof.getTxBlinding(), proof.getEBlinding(), proof.getIppProof(), proof.getCommitments()).verify(32, pc, generators)).isFalse();
+
+        assertThat(new RangeProof(proof.getS(), proof.getA(), proof.getT1(), proof.getT2(), proof.getTx(), proof.getTxBlinding(), proof.getEBlinding(), proof.getIppProof(), proof.getCommitments()).verify(32, pc, generators)).isFalse();
+
+        List<ECPoint> other = Arrays.asList(pc.commit(Utils.scalar(7L), Utils.randomScalar()), proof.getCommitment(1));
+        assertThat(new RangeProof(proof.getA(), proof.getS(), proof.getT1(), proof.getT2(), proof.getTx(), proof.getTxBlinding(), proof.getEBlinding(), proof.getIppProof(), other).verify(32, pc, generators)).isFalse();
+    }
+
+    @Test
+    public void testBatchVerify() throws NoSuchAlgorithmException, IOException {
+        PedersenCommitment pc = PedersenCommitment.getDefault();
+        BulletProofGenerators generators = new BulletProofGenerators(32, 2);
+
+        List<RangeProof> proofs = new ArrayList<>();
+        for (int k = 0; k < 3; k++) {
+            proofs.add(RangeProof.prove(Arrays.asList((long)k, 1L << 31), blindings(2), 32, pc, generators));
+        }
+        assertThat(RangeProof.batchVerify(proofs, 32, pc, generators, null)).isTrue();
+
+        RangeProof proof = proofs.get(1);
+        Scalar eBlinding = proof.getEBlinding().add(BulletProofs.getFactory().one());
+        proofs.set(1, new RangeProof(proof.getA(), proof.getS(), proof.getT1(), proof.getT2(), proof.getTx(), proof.getTxBlinding(), eBlinding, proof.getIppProof(), proof.getCommitments()));
+        assertThat(RangeProof.batchVerify(proofs, 32, pc, generators, null)).isFalse();
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testOutOfRange() throws NoSuchAlgorithmException, IOException {
+        RangeProof.prove(Collections.singletonList(256L), blindings(1), 8, PedersenCommitment.getDefault(), new BulletProofGenerators(8, 1));
+    }
+
+    @Test
+    public void testRejectsV1Transcript() throws NoSuchAlgorithmException, IOException {
+        PedersenCommitment pc = PedersenCommitment.getDefault();
+        BulletProofGenerators generators = new BulletProofGenerators(32, 1);
+
+        boolean rejected = false;
+        try {
+            RangeProof.prove(new Transcript(TranscriptVersion.v1), Collections.singletonList(5L), blindings(1), 32, pc, generators, null);
+        } catch (IllegalArgumentException e) {
+            rejected = true;
+        }
+        assertThat(rejected).isTrue();
+
+        RangeProof proof = RangeProof.prove(Collections.singletonList(5L), blindings(1), 32, pc, generators);
+        assertThat(proof.verify(new Transcript(TranscriptVersion.v1), 32, pc, generators, null)).isFalse();
+    }
+}
@@ -0,0 +1,228 @@
+package com.weavechain.zk.bulletproofs;
+
+import com.weavechain.ec.ECPoint;
+import com.weavechain.ec.Scalar;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+// Minimal gadgets exercising the constraint system extension points in tests
+public class TestGadgets {
+
+    public static class Params implements GadgetParams {
+
+        private final long[] values;
+
+        public Params(long... values) {
+            this.values = values;
+        }
+
+        public long get(int i) {
+            return values[i];
+        }
+
+        @Override
+        public String serializeNoValue() {
+            StringBuilder sb = new StringBuilder();
+            for (long v : values) {
+                sb.append(v).append(':');
+            }
+            return sb.toString();
+        }
+
+        @Override
+        public String serialize() {
+            return serializeNoValue();
+        }
+    }
+
+    public abstract static class Base implements Gadget<Params> {
+
+        private final String name;
+
+        Base(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public GadgetType getType() {
+            return () -> name;
+        }
+
+        @Override
+        public boolean isBatchProof() {
+            return false;
+        }
+
+        @Override
+        public boolean isNumericInput() {
+            return true;
+        }
+
+        @Override
+        public boolean isMultiColumn() {
+            return false;
+        }
+
+        @Override
+        public GadgetParams unpackParams(String params, Object value) {
+            return null;
+        }
+    }
+
+    // Proves the second half of the committed values is a permutation of the first half: prod(x_i - z) = prod(y_i - z)
+    //  for a challenge z drawn after the values are committed. Params: the number of values in each half
+    public static class Shuffle extends Base {
+
+        public Shuffle() {
+            super("shuffle");
+        }
+
+        @Override
+        public Proof generate(Object value, Params params, Scalar rnd, PedersenCommitment pedersenCommitment, BulletProofGenerators generators) {
+            long[] values = (long[])value;
+            Prover prover = new Prover(new Transcript(), pedersenCommitment);
+            List<Variable> variables = new ArrayList<>();
+            List<ECPoint> commitments = new ArrayList<>();
+            for (long v : values) {
+                Commitment c = prover.commit(Utils.scalar(v), Utils.randomScalar());
+                variables.add(c.getVariable());
+                commitments.add(c.getCommitment());
+            }
+            prover.specifyRandomizedConstraints(cs -> constrain(cs, variables, (int)params.get(0)));
+            return new Proof(prover.prove(generators), commitments);
+        }
+
+        @Override
+        public boolean verify(Params params, Proof proof, PedersenCommitment pedersenCommitment, BulletProofGenerators generators) {
+            Verifier verifier = verifier(params, proof);
+            return verifier != null && verifier.verify(proof, pedersenCommitment, generators);
+        }
+
+        @Override
+        public Verifier verifier(Params params, Proof proof) {
+            int k = (int)params.get(0);
+            if (proof.getCommitments().size() != 2 * k) {
+                return null;
+            }
+
+            Verifier verifier = new Verifier(new Transcript());
+            List<Variable> variables = new ArrayList<>();
+            for (ECPoint c : proof.getCommitments()) {
+                variables.add(verifier.commit(c));
+            }
+            verifier.specifyRandomizedConstraints(cs -> constrain(cs, variables, k));
+            return verifier;
+        }
+
+        private static void constrain(RandomizedConstraintSystem cs, List<Variable> variables, int k) {
+            Scalar z = cs.challengeScalar("shuffle challenge");
+            LinearCombination x = product(cs, variables.subList(0, k), z);
+            LinearCombination y = product(cs, variables.subList(k, 2 * k), z);
+            cs.constrain(x.sub(y));
+        }
+
+        private static LinearCombination product(ConstraintSystem cs, List<Variable> variables, Scalar z) {
+            LinearCombination result = LinearCombination.from(variables.get(0)).sub(LinearCombination.from(z));
+            for (int i = 1; i < variables.size(); i++) {
+                LRO lro = cs.multiply(result, LinearCombination.from(variables.get(i)).sub(LinearCombination.from(z)));
+                result = LinearCombination.from(lro.getOutput());
+            }
+            return result;
+        }
+    }
+
+    // Composable range check of a shared input: min <= v <= max, with v - min and max - v committed by the gadget
+    //  and decomposed in bits. Params: min, max, bits
+    public static class Range extends Base {
+
+        public Range() {
+            super("range");
+        }
+
+        @Override
+        public Proof generate(Object value, Params params, Scalar rnd, PedersenCommitment pedersenCommitment, BulletProofGenerators generators) {
+            return null;
+        }
+
+        @Override
+        public boolean verify(Params params, Proof proof, PedersenCommitment pedersenCommitment, BulletProofGenerators generators) {
+            return false;
+        }
+
+        @Override
+        public boolean constrain(Prover prover, Params params, Object value, Scalar rnd, List<Allocated> inputs) {
+            Allocated v = inputs.get(0);
+            BigInteger a = v.getAssignment().subtract(BigInteger.valueOf(params.get(0)));
+            BigInteger b = BigInteger.valueOf(params.get(1)).subtract(v.getAssignment());
+            Commitment aComm = prover.commit(Utils.scalar(a), Utils.randomScalar());
+            Commitment bComm = prover.commit(Utils.scalar(b), Utils.randomScalar());
+            return checkBound(prover, v.getVariable(), new Allocated(aComm.getVariable(), a), new Allocated(bComm.getVariable(), b), params);
+        }
+
+        @Override
+        public boolean constrain(Verifier verifier, Params params, List<Variable> inputs, List<ECPoint> commitments) {
+            Variable a = verifier.commit(commitments.get(0));
+            Variable b = verifier.commit(commitments.get(1));
+            return checkBound(verifier, inputs.get(0), new Allocated(a, null), new Allocated(b, null), params);
+        }
+
+        private static boolean checkBound(ConstraintSystem cs, Variable v, Allocated a, Allocated b, Params params) {
+            long min = params.get(0);
+            long max = params.get(1);
+            cs.constrain(LinearCombination.from(v).sub(LinearCombination.from(Utils.scalar(min))).sub(LinearCombination.from(a.getVariable())));
+            cs.constrain(LinearCombination.from(Utils.scalar(max)).sub(LinearCombination.from(v)).sub(LinearCombination.from(b.getVariable())));
+            return isPositive(cs, a, (int)params.get(2)) && isPositive(cs, b, (int)params.get(2));
+        }
+
+        private static boolean isPositive(ConstraintSystem cs, Allocated variable, int bits) {
+            LinearCombination lc = LinearCombination.from(new Term(variable.getVariable(), BulletProofs.getFactory().minus_one()));
+            Scalar exp2 = BulletProofs.getFactory().one();
+            for (int i = 0; i < bits; i++) {
+                long bit = variable.getAssignment() != null ? variable.getAssignment().shiftRight(i).and(BigInteger.ONE).longValue() : 0L;
+                LRO lro = cs.allocateMultiplier(Utils.scalar(1 - bit), Utils.scalar(bit));
+
+                // a * b = 0 and a = 1 - b, so b is a bit
+                cs.constrain(LinearCombination.from(lro.getOutput()));
+                cs.constrain(LinearCombination.from(lro.getLeft()).add(LinearCombination.from(lro.getRight())).sub(LinearCombination.from(BulletProofs.getFactory().one())));
+
+                lc = lc.add(LinearCombination.from(new Term(lro.getRight(), exp2)));
+                exp2 = exp2.add(exp2);
+            }
+            // sum of b_i * 2^i - v = 0
+            cs.constrain(lc);
+            return true;
+        }
+    }
+
+    // Composable equality of two shared inputs
+    public static class Equal extends Base {
+
+        public Equal() {
+            super("equal");
+        }
+
+        @Override
+        public Proof generate(Object value, Params params, Scalar rnd, PedersenCommitment pedersenCommitment, BulletProofGenerators generators) {
+            return null;
+        }
+
+        @Override
+        public boolean verify(Params params, Proof proof, PedersenCommitment pedersenCommitment, BulletProofGenerators generators) {
+            return false;
+        }
+
+        @Override
+        public boolean constrain(Prover prover, Params params, Object value, Scalar rnd, List<Allocated> inputs) {
+            prover.constrain(LinearCombination.from(inputs.get(0).getVariable()).sub(LinearCombination.from(inputs.get(1).getVariable())));
+            return true;
+        }
+
+        @Override
+        public boolean constrain(Verifier verifier, Params params, List<Variable> inputs, List<ECPoint> commitments) {
+            verifier.constrain(LinearCombination.from(inputs.get(0)).sub(LinearCombination.from(inputs.get(1))));
+            return true;
+        }
+    }
+}